@@ -0,0 +1,220 @@
+package bench;
+
+import control.Controller2D;
+import model.Polygon;
+import rasterize.DirtyRegion;
+import rasterize.RenderStats;
+import view.Panel;
+
+import java.awt.event.ComponentEvent;
+import java.awt.event.ComponentListener;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+// drives a Controller2D through its own listeners: builds a scene with clicks, ENTER and fills, then alternates
+// full redraws (a resize within the buffer capacity) with frames moving the pentagon preview, and fails when a
+// steady frame allocates more than the budget on the render thread or the tiled renderer's pool. it runs serially
+// and on the pool, with the render statistics off and on, and reads allocation per thread from ThreadMXBean.
+// presenting a frame hands its paint to the EDT with SwingUtilities.invokeLater, which allocates the event, its
+// access control context and queue entry on the render thread, about 220 bytes. that is Swing's, at most one per
+// frame, and what the default budget allows; everything the controller does itself must not allocate
+public final class AllocationCheck {
+
+    private static final int WIDTH = Panel.WIDTH, HEIGHT = Panel.HEIGHT;
+    private static final int WARMUP_FRAMES = 3000;
+    private static final int FRAMES = 1000;
+    // the smallest of a few measurements, so a stray compilation or safepoint on one of them does not count
+    private static final int ROUNDS = 3;
+    private static final long DEFAULT_BUDGET = 256;
+    private static final long TIMEOUT_NANOS = 10_000_000_000L;
+
+    private final CountingPanel panel = new CountingPanel();
+    private final MouseListener mouse;
+    private final MouseMotionListener motion;
+    private final KeyListener keys;
+    private final ComponentListener resize;
+    private final ComponentEvent resized;
+    // created up front, so the measured thread is the only one with work to do
+    private final MouseEvent[] moves = new MouseEvent[200];
+    private long resizes;
+
+    private AllocationCheck(int polygons) {
+        panel.setSize(WIDTH, HEIGHT);
+        new Controller2D(panel);
+        mouse = panel.getMouseListeners()[0];
+        motion = panel.getMouseMotionListeners()[0];
+        keys = panel.getKeyListeners()[0];
+        resize = panel.getComponentListeners()[0];
+        resized = new ComponentEvent(panel, ComponentEvent.COMPONENT_RESIZED);
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = new MouseEvent(panel, MouseEvent.MOUSE_MOVED, 0, 0, WIDTH / 2 + 20 + i, HEIGHT / 2, 0, false);
+        }
+
+        // the controller reports every click on standard output
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (Polygon polygon : Shapes.scene(WIDTH, HEIGHT, polygons, 42)) {
+                for (int i = 0; i < polygon.getVertexCount(); i++) {
+                    click(polygon.getX(i), polygon.getY(i), false);
+                }
+                key(KeyEvent.VK_ENTER);
+                if (polygon.isFilled()) {
+                    click((int) polygon.getCentroidX(), (int) polygon.getCentroidY(), true);
+                }
+            }
+            // the pentagon tool with its center set, so a mouse move reshapes the preview
+            key(KeyEvent.VK_P);
+            click(WIDTH / 2, HEIGHT / 2, false);
+            // input taken just before a resize is handled in the frame after it
+            redraw();
+            redraw();
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    public static void main(String[] args) {
+        int polygons = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        long budget = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_BUDGET;
+        // frames are never held back by the cap, so each one is painted the way it was presented
+        System.setProperty("grafika.maxFps", "100000");
+
+        boolean failed = false;
+        int[] threadCounts = {1, Math.max(2, Runtime.getRuntime().availableProcessors())};
+        for (boolean stats : new boolean[]{false, true}) {
+            RenderStats.setEnabled(stats);
+            for (int threads : threadCounts) {
+                System.setProperty("grafika.renderThreads", Integer.toString(threads));
+                AllocationCheck check = new AllocationCheck(polygons);
+                long perFrame = check.measure();
+                System.out.println(threads + " thread(s), " + polygons + " polygons, statistics " + (stats ? "on" : "off")
+                        + ": " + perFrame + " bytes per frame");
+                failed |= perFrame > budget;
+            }
+        }
+        if (failed) {
+            System.out.println("Steady frames allocate more than " + budget + " bytes per frame.");
+            System.exit(1);
+        }
+    }
+
+    private long measure() {
+        for (int f = 0; f < WARMUP_FRAMES; f++) {
+            frame(f);
+        }
+
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long[] ids = threadIds();
+        long perFrame = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long frames = panel.presented;
+            long before = sum(bean.getThreadAllocatedBytes(ids));
+            for (int f = 0; f < FRAMES; f++) {
+                frame(f);
+            }
+            long after = sum(bean.getThreadAllocatedBytes(ids));
+            perFrame = Math.min(perFrame, (after - before) / (panel.presented - frames));
+        }
+        return perFrame;
+    }
+
+    private void frame(int f) {
+        if (f % 2 == 0) {
+            // the whole scene, as on a resize or a cleared canvas
+            redraw();
+        } else {
+            // the preview following the mouse on the overlay
+            long presented = panel.presented;
+            motion.mouseMoved(moves[f / 2 % moves.length]);
+            long deadline = System.nanoTime() + TIMEOUT_NANOS;
+            while (panel.presented == presented) {
+                await(deadline);
+            }
+        }
+    }
+
+    private void redraw() {
+        resize.componentResized(resized);
+        resizes++;
+        long deadline = System.nanoTime() + TIMEOUT_NANOS;
+        while (panel.presentedResizes < resizes) {
+            await(deadline);
+        }
+    }
+
+    private static void await(long deadline) {
+        if (System.nanoTime() > deadline) {
+            System.out.println("The controller stopped presenting frames.");
+            System.exit(1);
+        }
+        Thread.onSpinWait();
+    }
+
+    private void click(int x, int y, boolean right) {
+        int modifiers = right ? InputEvent.BUTTON3_DOWN_MASK : InputEvent.BUTTON1_DOWN_MASK;
+        int button = right ? MouseEvent.BUTTON3 : MouseEvent.BUTTON1;
+        mouse.mousePressed(new MouseEvent(panel, MouseEvent.MOUSE_PRESSED, 0, modifiers, x, y, 1, false, button));
+        mouse.mouseReleased(new MouseEvent(panel, MouseEvent.MOUSE_RELEASED, 0, 0, x, y, 1, false, button));
+    }
+
+    private void key(int code) {
+        keys.keyPressed(new KeyEvent(panel, KeyEvent.KEY_PRESSED, 0, 0, code, KeyEvent.CHAR_UNDEFINED));
+    }
+
+    // the render threads and every live pool worker; the render threads of earlier checks are idle
+    private static long[] threadIds() {
+        List<Thread> threads = new ArrayList<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("render") || thread.getName().startsWith("ForkJoinPool-")) {
+                threads.add(thread);
+            }
+        }
+        long[] ids = new long[threads.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = threads.get(i).getId();
+        }
+        return ids;
+    }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += Math.max(0, value);
+        }
+        return total;
+    }
+
+    // counts the frames the controller presents, and the resizes applied before the latest of them
+    private static final class CountingPanel extends Panel {
+
+        private static final long serialVersionUID = 1L;
+
+        // written by the render thread only
+        private volatile long presented;
+        private volatile long resizes;
+        private volatile long presentedResizes;
+
+        @Override
+        public void resizeBuffers(int width, int height) {
+            super.resizeBuffers(width, height);
+            resizes++;
+        }
+
+        @Override
+        public void present(DirtyRegion region) {
+            super.present(region);
+            presentedResizes = resizes;
+            presented++;
+        }
+    }
+}
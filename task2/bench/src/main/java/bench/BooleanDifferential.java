@@ -0,0 +1,171 @@
+package bench;
+
+import model.Polygon;
+import rasterize.AreaBooleanEngine;
+import rasterize.BooleanEngine;
+import rasterize.BooleanOperation;
+import rasterize.SegmentBooleanEngine;
+import rasterize.SweepBooleanEngine;
+
+import java.awt.geom.Area;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+// runs random polygon pairs through SegmentBooleanEngine and SweepBooleanEngine, and random groups of
+// polygons through SweepBooleanEngine, and compares the results with the Area reference.
+// Area truncates its output to ints while the engines round, so the areas may differ by about
+// half a pixel along the boundary; anything above TOLERANCE is reported.
+public final class BooleanDifferential {
+
+    private static final double TOLERANCE = 1.0;
+
+    private BooleanDifferential() {
+    }
+
+    private static int failures;
+    private static double worst;
+
+    public static void main(String[] args) {
+        int cases = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+        Random random = new Random(seed);
+        BooleanEngine segment = new SegmentBooleanEngine();
+        SweepBooleanEngine sweep = new SweepBooleanEngine();
+        BooleanEngine area = new AreaBooleanEngine();
+
+        for (int c = 0; c < cases; c++) {
+            Polygon subject = randomPolygon(random);
+            Polygon clipper = randomPolygon(random);
+            BooleanOperation operation = BooleanOperation.values()[c % BooleanOperation.values().length];
+
+            List<Polygon> expected = area.apply(subject, clipper, operation);
+            compare("case " + c + " " + operation + " segment", expected, () -> segment.apply(subject, clipper, operation));
+            compare("case " + c + " " + operation + " sweep", expected, () -> sweep.apply(subject, clipper, operation));
+        }
+
+        // whole groups at once against the reference folded pairwise
+        int groups = cases / 10;
+        for (int c = 0; c < groups; c++) {
+            List<Polygon> polygons = new ArrayList<>();
+            int n = 3 + random.nextInt(14);
+            for (int i = 0; i < n; i++) {
+                polygons.add(randomPolygon(random));
+            }
+            BooleanOperation operation = BooleanOperation.values()[c % BooleanOperation.values().length];
+
+            List<Polygon> expected = AreaBooleanEngine.toPolygons(fold(polygons, operation));
+            compare("group " + c + " of " + n + " " + operation, expected, () -> sweep.apply(polygons, operation));
+        }
+
+        System.out.println(cases + " pairs and " + groups + " groups, " + failures + " failures, worst area error per boundary pixel " + worst);
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static Area fold(List<Polygon> polygons, BooleanOperation operation) {
+        Area result = AreaBooleanEngine.toArea(polygons.get(0));
+        for (int i = 1; i < polygons.size(); i++) {
+            Area area = AreaBooleanEngine.toArea(polygons.get(i));
+            switch (operation) {
+                case DIFFERENCE:
+                    result.subtract(area);
+                    break;
+                case INTERSECTION:
+                    result.intersect(area);
+                    break;
+                case UNION:
+                    result.add(area);
+                    break;
+                default:
+                    result.exclusiveOr(area);
+            }
+        }
+        return result;
+    }
+
+    private static void compare(String name, List<Polygon> expected, Supplier<List<Polygon>> engine) {
+        List<Polygon> actual;
+        try {
+            actual = engine.get();
+        } catch (RuntimeException e) {
+            System.out.println(name + " failed: " + e);
+            failures++;
+            return;
+        }
+
+        // area difference per pixel of boundary
+        double boundary = Math.max(1, perimeter(expected) + perimeter(actual));
+        double error = Math.abs(area(expected) - area(actual)) / boundary;
+        worst = Math.max(worst, error);
+        if (error > TOLERANCE) {
+            System.out.println(name + " area " + area(actual) + " expected " + area(expected));
+            failures++;
+        }
+    }
+
+    private static Polygon randomPolygon(Random random) {
+        int cx = 100 + random.nextInt(200);
+        int cy = 100 + random.nextInt(200);
+        switch (random.nextInt(4)) {
+            case 0: {
+                Polygon polygon = Shapes.regular(cx, cy, 30 + random.nextInt(120), 3 + random.nextInt(12));
+                if (random.nextBoolean()) {
+                    polygon.addHole(Shapes.regular(cx, cy, 10 + random.nextInt(15), 6));
+                }
+                return polygon;
+            }
+            case 1: {
+                // grid aligned, so edges often lie on top of each other
+                int x = 50 + random.nextInt(20) * 10;
+                int y = 50 + random.nextInt(20) * 10;
+                return Shapes.rectangle(x, y, x + 10 + random.nextInt(20) * 10, y + 10 + random.nextInt(20) * 10);
+            }
+            case 2:
+                return Shapes.star(cx, cy, 40 + random.nextInt(100), 10 + random.nextInt(30), 3 + random.nextInt(8));
+            default: {
+                // random vertices, usually self-intersecting
+                Polygon polygon = new Polygon();
+                int n = 4 + random.nextInt(8);
+                for (int i = 0; i < n; i++) {
+                    polygon.addVertex(50 + random.nextInt(300), 50 + random.nextInt(300));
+                }
+                polygon.setClosed(true);
+                return polygon;
+            }
+        }
+    }
+
+    private static double area(List<Polygon> polygons) {
+        double area = 0;
+        for (Polygon polygon : polygons) {
+            area += Math.abs(polygon.getSignedArea());
+            for (Polygon hole : polygon.getHoles()) {
+                area -= Math.abs(hole.getSignedArea());
+            }
+        }
+        return area;
+    }
+
+    private static double perimeter(List<Polygon> polygons) {
+        double length = 0;
+        for (Polygon polygon : polygons) {
+            length += perimeter(polygon);
+            for (Polygon hole : polygon.getHoles()) {
+                length += perimeter(hole);
+            }
+        }
+        return length;
+    }
+
+    private static double perimeter(Polygon polygon) {
+        double length = 0;
+        int n = polygon.getVertexCount();
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            length += Math.hypot(polygon.getX(i) - polygon.getX(j), polygon.getY(i) - polygon.getY(j));
+        }
+        return length;
+    }
+}
@@ -0,0 +1,69 @@
+package bench;
+
+import model.Polygon;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import rasterize.AreaBooleanEngine;
+import rasterize.BooleanOperation;
+import rasterize.SegmentBooleanEngine;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClipBenchmark {
+
+    @Param({"CONVEX", "CONCAVE", "HOLES"})
+    public String shape;
+
+    @Param({"DIFFERENCE", "INTERSECTION", "UNION", "XOR"})
+    public BooleanOperation operation;
+
+    private final SegmentBooleanEngine segmentEngine = new SegmentBooleanEngine();
+    private final AreaBooleanEngine areaEngine = new AreaBooleanEngine();
+    private Polygon subject;
+    private Polygon pentagon;
+
+    @Setup
+    public void setup() {
+        switch (shape) {
+            case "CONVEX":
+                subject = Shapes.regular(400, 300, 250, 32);
+                break;
+            case "CONCAVE":
+                subject = Shapes.star(400, 300, 280, 90, 12);
+                break;
+            case "HOLES":
+                subject = Shapes.withHoles(50, 50, 750, 550, 6);
+                break;
+            default:
+                throw new IllegalArgumentException(shape);
+        }
+        pentagon = Shapes.regular(420, 310, 120, 5);
+    }
+
+    @Benchmark
+    public List<Polygon> segment() {
+        return segmentEngine.apply(subject, pentagon, operation);
+    }
+
+    // the java.awt.geom.Area round trip the clipping used before
+    @Benchmark
+    public List<Polygon> area() {
+        return areaEngine.apply(subject, pentagon, operation);
+    }
+}
@@ -0,0 +1,108 @@
+package bench;
+
+import fill.ScanLine;
+import fill.SeedFill;
+import fill.SeedFillBorder;
+import model.Polygon;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import rasterize.LineRasterizerGraphics;
+import rasterize.RasterIntBuffer;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FillBenchmark {
+
+    private static final int WIDTH = 1920, HEIGHT = 1080;
+
+    @Param({"CONVEX", "CONCAVE", "HOLES", "HUGE"})
+    public String shape;
+
+    private RasterIntBuffer raster;
+    private Polygon polygon;
+    private int seedX, seedY;
+    private int frame;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() {
+        switch (shape) {
+            case "CONVEX":
+                polygon = Shapes.regular(960, 540, 400, 12);
+                seedX = 960;
+                seedY = 540;
+                break;
+            case "CONCAVE":
+                polygon = Shapes.star(960, 540, 500, 150, 9);
+                seedX = 960;
+                seedY = 540;
+                break;
+            case "HOLES":
+                polygon = Shapes.withHoles(100, 100, 1800, 1000, 12);
+                seedX = 105;
+                seedY = 105;
+                break;
+            case "HUGE":
+                polygon = Shapes.regular(960, 540, 3000, 40);
+                seedX = 960;
+                seedY = 540;
+                break;
+            default:
+                throw new IllegalArgumentException(shape);
+        }
+        raster = new RasterIntBuffer(WIDTH, HEIGHT);
+        Frames.drawOutlineWithHoles(new LineRasterizerGraphics(raster), polygon);
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    // seed fills stop on their own fill color, so consecutive invocations alternate between two colors
+    private int nextColor() {
+        return (frame++ & 1) == 0 ? 0x00FF00 : 0x0000FF;
+    }
+
+    @Benchmark
+    public void scanLine() {
+        ScanLine scanLine = new ScanLine(raster, polygon, nextColor(), Frames.BOUNDARY_COLOR);
+        scanLine.setIncludeHoles(true);
+        scanLine.fill();
+    }
+
+    @Benchmark
+    public void seedFill() {
+        new SeedFill(raster, seedX, seedY, nextColor(), Frames.BOUNDARY_COLOR).fill();
+    }
+
+    @Benchmark
+    public void seedFillParallel() {
+        SeedFill seedFill = new SeedFill(raster, seedX, seedY, nextColor(), Frames.BOUNDARY_COLOR);
+        seedFill.setParallel(pool);
+        seedFill.fill();
+    }
+
+    @Benchmark
+    public void seedFillBorder() {
+        new SeedFillBorder(raster, seedX, seedY, nextColor(), Frames.BOUNDARY_COLOR).fill();
+    }
+}
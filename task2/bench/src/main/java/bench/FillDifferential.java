@@ -0,0 +1,75 @@
+package bench;
+
+import fill.SeedFill;
+import model.Polygon;
+import rasterize.LineRasterizerGraphics;
+import rasterize.RasterIntBuffer;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// seed fills random canvases of overlapping outlines serially and in parallel, from the same seeds and with
+// 4 and 8 connectivity, and fails when the two leave a single pixel different
+public final class FillDifferential {
+
+    private static final int WIDTH = 1024, HEIGHT = 1024;
+
+    private FillDifferential() {
+    }
+
+    public static void main(String[] args) {
+        int cases = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+        Random random = new Random(seed);
+        ForkJoinPool pool = new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+        RasterIntBuffer serial = new RasterIntBuffer(WIDTH, HEIGHT);
+        RasterIntBuffer parallel = new RasterIntBuffer(WIDTH, HEIGHT);
+
+        int failures = 0;
+        for (int c = 0; c < cases; c++) {
+            serial.clear();
+            int outlines = 1 + random.nextInt(40);
+            LineRasterizerGraphics rasterizer = new LineRasterizerGraphics(serial);
+            for (int i = 0; i < outlines; i++) {
+                Frames.drawOutline(rasterizer, randomPolygon(random));
+            }
+            parallel.draw(serial);
+
+            int x = random.nextInt(WIDTH);
+            int y = random.nextInt(HEIGHT);
+            int connectivity = c % 2 == 0 ? 4 : 8;
+            fill(serial, x, y, connectivity, null);
+            fill(parallel, x, y, connectivity, pool);
+
+            if (!Arrays.equals(serial.getPixels(), parallel.getPixels())) {
+                failures++;
+                System.out.println("case " + c + ": " + outlines + " outlines, seed (" + x + ", " + y + "), "
+                        + connectivity + "-connected, the parallel fill differs");
+            }
+        }
+        pool.shutdown();
+
+        System.out.println(cases + " seed fills, " + failures + " failures");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void fill(RasterIntBuffer raster, int x, int y, int connectivity, ForkJoinPool pool) {
+        SeedFill seedFill = new SeedFill(raster, x, y, Frames.FILL_COLOR, Frames.BOUNDARY_COLOR);
+        seedFill.setConnectivity(connectivity);
+        seedFill.setParallel(pool);
+        seedFill.fill();
+    }
+
+    private static Polygon randomPolygon(Random random) {
+        int cx = random.nextInt(WIDTH);
+        int cy = random.nextInt(HEIGHT);
+        int radius = 20 + random.nextInt(WIDTH / 2);
+        Polygon polygon = random.nextBoolean()
+                ? Shapes.regular(cx, cy, radius, 3 + random.nextInt(10))
+                : Shapes.star(cx, cy, radius, radius / 3, 3 + random.nextInt(6));
+        return polygon;
+    }
+}
@@ -0,0 +1,80 @@
+package bench;
+
+import model.Polygon;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import rasterize.DirtyRegion;
+import rasterize.LineRasterizerGraphics;
+import rasterize.RasterIntBuffer;
+import rasterize.RenderCache;
+import rasterize.TiledRenderer;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameBenchmark {
+
+    @Param({"800x600", "1920x1080", "3840x2160"})
+    public String canvas;
+
+    @Param({"10", "100", "1000"})
+    public int polygons;
+
+    private RasterIntBuffer raster;
+    private LineRasterizerGraphics rasterizer;
+    private Polygon[] scene;
+    private RenderCache[] caches;
+    private TiledRenderer tiledRenderer;
+    private final DirtyRegion region = new DirtyRegion();
+
+    @Setup
+    public void setup() {
+        String[] size = canvas.split("x");
+        int width = Integer.parseInt(size[0]);
+        int height = Integer.parseInt(size[1]);
+        raster = new RasterIntBuffer(width, height);
+        rasterizer = new LineRasterizerGraphics(raster);
+        scene = Shapes.scene(width, height, polygons, 42);
+        caches = new RenderCache[scene.length];
+        for (int i = 0; i < scene.length; i++) {
+            caches[i] = Frames.buildCache(scene[i]);
+        }
+        tiledRenderer = new TiledRenderer(Runtime.getRuntime().availableProcessors());
+        region.add(0, 0, width - 1, height - 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        tiledRenderer.shutdown();
+    }
+
+    @Benchmark
+    public void redrawScene() {
+        Frames.render(raster, rasterizer, scene);
+    }
+
+    @Benchmark
+    public void redrawSceneCached() {
+        Frames.renderCached(raster, caches);
+    }
+
+    @Benchmark
+    public void redrawSceneTiled() {
+        tiledRenderer.render(raster, region, band -> Frames.renderCached(band, caches));
+    }
+}
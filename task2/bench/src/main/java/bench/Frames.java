@@ -0,0 +1,69 @@
+package bench;
+
+import fill.ScanLine;
+import model.Polygon;
+import rasterize.LineRasterizerGraphics;
+import rasterize.Raster;
+import rasterize.RenderCache;
+import rasterize.SpanSink;
+
+import java.awt.Color;
+
+// mirrors one Controller2D scene redraw, without the Swing panel around it
+final class Frames {
+
+    static final int BOUNDARY_COLOR = 0xFFFFFF;
+    static final int FILL_COLOR = Color.GREEN.getRGB();
+
+    private Frames() {
+    }
+
+    static void drawOutline(LineRasterizerGraphics rasterizer, Polygon polygon) {
+        rasterizer.setColor(Color.WHITE);
+        rasterizer.drawOutline(polygon);
+    }
+
+    static void drawOutlineWithHoles(LineRasterizerGraphics rasterizer, Polygon polygon) {
+        drawOutline(rasterizer, polygon);
+        for (Polygon hole : polygon.getHoles()) {
+            drawOutline(rasterizer, hole);
+        }
+    }
+
+    static void fill(SpanSink sink, Polygon polygon) {
+        ScanLine scanLine = new ScanLine(sink, polygon, FILL_COLOR, BOUNDARY_COLOR);
+        scanLine.setIncludeHoles(true);
+        scanLine.fill();
+    }
+
+    static void render(Raster raster, LineRasterizerGraphics rasterizer, Polygon[] polygons) {
+        raster.clear();
+        for (Polygon polygon : polygons) {
+            drawOutlineWithHoles(rasterizer, polygon);
+        }
+        for (Polygon polygon : polygons) {
+            if (polygon.isFilled()) {
+                fill(raster, polygon);
+            }
+        }
+    }
+
+    static RenderCache buildCache(Polygon polygon) {
+        RenderCache cache = new RenderCache();
+        drawOutlineWithHoles(new LineRasterizerGraphics(cache.getRecorder()), polygon);
+        if (polygon.isFilled()) {
+            fill(cache.getRecorder(), polygon);
+        }
+        return cache;
+    }
+
+    static void renderCached(Raster raster, RenderCache[] caches) {
+        raster.clear();
+        for (RenderCache cache : caches) {
+            cache.replayOutline(raster);
+        }
+        for (RenderCache cache : caches) {
+            cache.replayFill(raster);
+        }
+    }
+}
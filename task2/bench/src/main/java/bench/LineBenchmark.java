@@ -0,0 +1,61 @@
+package bench;
+
+import model.Line;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import rasterize.LineRasterizerGraphics;
+import rasterize.RasterIntBuffer;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LineBenchmark {
+
+    @Param({"SHORT", "LONG", "STEEP", "OFFSCREEN"})
+    public String kind;
+
+    private LineRasterizerGraphics rasterizer;
+    private Line line;
+
+    @Setup
+    public void setup() {
+        RasterIntBuffer raster = new RasterIntBuffer(1920, 1080);
+        rasterizer = new LineRasterizerGraphics(raster);
+        switch (kind) {
+            case "SHORT":
+                line = new Line(100, 100, 116, 108, 0xFFFFFF);
+                break;
+            case "LONG":
+                line = new Line(10, 400, 1900, 700, 0xFFFFFF);
+                break;
+            case "STEEP":
+                line = new Line(900, 0, 960, 1079, 0xFFFFFF);
+                break;
+            case "OFFSCREEN":
+                // a dragged vertex far outside the window, only a sliver of the line is visible
+                line = new Line(-200000, -50000, 1000, 540, 0xFFFFFF);
+                break;
+            default:
+                throw new IllegalArgumentException(kind);
+        }
+    }
+
+    @Benchmark
+    public void drawLine() {
+        rasterizer.rasterize(line);
+    }
+}
@@ -0,0 +1,51 @@
+package bench;
+
+import model.Polygon;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import rasterize.LineRasterizerGraphics;
+import rasterize.RasterIntBuffer;
+
+import java.util.concurrent.TimeUnit;
+
+// a polygon outline drawn in one call, on screen and hanging mostly outside the raster
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutlineBenchmark {
+
+    @Param({"16", "256"})
+    public int vertices;
+
+    @Param({"INSIDE", "OUTSIDE"})
+    public String placement;
+
+    private LineRasterizerGraphics rasterizer;
+    private Polygon polygon;
+
+    @Setup
+    public void setup() {
+        RasterIntBuffer raster = new RasterIntBuffer(1920, 1080);
+        rasterizer = new LineRasterizerGraphics(raster);
+        polygon = placement.equals("INSIDE")
+                ? Shapes.regular(960, 540, 500, vertices)
+                : Shapes.regular(0, 0, 20000, vertices);
+    }
+
+    @Benchmark
+    public void outline() {
+        rasterizer.drawOutline(polygon);
+    }
+}
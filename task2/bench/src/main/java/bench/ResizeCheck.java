@@ -0,0 +1,55 @@
+package bench;
+
+import rasterize.Raster;
+import view.Panel;
+
+// drags the panel from 800x600 to 1920x1080 in small steps, back down and up again, and fails when resizing
+// reallocates the buffers more than the growth policy allows or at all within the capacity already reached
+public final class ResizeCheck {
+
+    private static final int STEPS = 140;
+    // growing by half again from 800x600 needs at most this many reallocations to reach 1920x1080
+    private static final int MAX_GROWTH_REALLOCATIONS = 4;
+
+    private ResizeCheck() {
+    }
+
+    public static void main(String[] args) {
+        Panel panel = new Panel();
+        boolean failed = false;
+
+        drag(panel, true);
+        int grown = panel.getReallocations();
+        System.out.println("800x600 to 1920x1080 in " + STEPS + " steps: " + grown + " reallocations");
+        failed |= grown > MAX_GROWTH_REALLOCATIONS;
+        failed |= !hasSize(panel.getRaster(), 1920, 1080);
+
+        drag(panel, false);
+        failed |= !hasSize(panel.getRaster(), 800, 600);
+        drag(panel, true);
+        int again = panel.getReallocations() - grown;
+        System.out.println("shrunk and grown back: " + again + " reallocations");
+        failed |= again != 0;
+        failed |= !hasSize(panel.getRaster(), 1920, 1080);
+
+        if (failed) {
+            System.out.println("Resizing reallocates more often than it should.");
+            System.exit(1);
+        }
+    }
+
+    private static void drag(Panel panel, boolean growing) {
+        for (int s = 0; s <= STEPS; s++) {
+            int step = growing ? s : STEPS - s;
+            panel.resizeBuffers(800 + step * 1120 / STEPS, 600 + step * 480 / STEPS);
+        }
+    }
+
+    private static boolean hasSize(Raster raster, int width, int height) {
+        if (raster.getWidth() == width && raster.getHeight() == height) {
+            return true;
+        }
+        System.out.println("Raster is " + raster.getWidth() + "x" + raster.getHeight() + ", expected " + width + "x" + height + ".");
+        return false;
+    }
+}
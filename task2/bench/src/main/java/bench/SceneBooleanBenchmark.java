@@ -0,0 +1,65 @@
+package bench;
+
+import model.Polygon;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import rasterize.AreaBooleanEngine;
+import rasterize.BooleanOperation;
+import rasterize.SweepBooleanEngine;
+
+import java.awt.geom.Area;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// merging a whole scene at once: one sweep over every polygon against folding them into an Area one by one
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SceneBooleanBenchmark {
+
+    @Param({"100", "300", "1000"})
+    public int count;
+
+    @Param({"UNION", "XOR"})
+    public BooleanOperation operation;
+
+    private final SweepBooleanEngine sweepEngine = new SweepBooleanEngine();
+    private List<Polygon> polygons;
+
+    @Setup
+    public void setup() {
+        polygons = Arrays.asList(Shapes.scene(800, 600, count, 1));
+    }
+
+    @Benchmark
+    public List<Polygon> sweep() {
+        return sweepEngine.apply(polygons, operation);
+    }
+
+    @Benchmark
+    public List<Polygon> area() {
+        Area result = new Area();
+        for (Polygon polygon : polygons) {
+            Area area = AreaBooleanEngine.toArea(polygon);
+            if (operation == BooleanOperation.UNION) {
+                result.add(area);
+            } else {
+                result.exclusiveOr(area);
+            }
+        }
+        return AreaBooleanEngine.toPolygons(result);
+    }
+}
@@ -0,0 +1,73 @@
+package bench;
+
+import model.Point;
+import model.Polygon;
+
+import java.util.Random;
+
+final class Shapes {
+
+    private Shapes() {
+    }
+
+    static Polygon regular(int cx, int cy, int radius, int sides) {
+        Polygon polygon = new Polygon();
+        for (int i = 0; i < sides; i++) {
+            double angle = 2 * Math.PI * i / sides;
+            polygon.addVertex(new Point(cx + (int) (radius * Math.cos(angle)), cy + (int) (radius * Math.sin(angle))));
+        }
+        polygon.setClosed(true);
+        return polygon;
+    }
+
+    static Polygon star(int cx, int cy, int outer, int inner, int points) {
+        Polygon polygon = new Polygon();
+        for (int i = 0; i < points * 2; i++) {
+            double angle = Math.PI * i / points;
+            int r = i % 2 == 0 ? outer : inner;
+            polygon.addVertex(new Point(cx + (int) (r * Math.cos(angle)), cy + (int) (r * Math.sin(angle))));
+        }
+        polygon.setClosed(true);
+        return polygon;
+    }
+
+    static Polygon rectangle(int x1, int y1, int x2, int y2) {
+        Polygon polygon = new Polygon();
+        polygon.addVertex(new Point(x1, y1));
+        polygon.addVertex(new Point(x2, y1));
+        polygon.addVertex(new Point(x2, y2));
+        polygon.addVertex(new Point(x1, y2));
+        polygon.setClosed(true);
+        return polygon;
+    }
+
+    static Polygon withHoles(int x1, int y1, int x2, int y2, int holesPerSide) {
+        Polygon polygon = rectangle(x1, y1, x2, y2);
+        int cellW = (x2 - x1) / (holesPerSide + 1);
+        int cellH = (y2 - y1) / (holesPerSide + 1);
+        for (int i = 0; i < holesPerSide; i++) {
+            for (int j = 0; j < holesPerSide; j++) {
+                int cx = x1 + cellW * (i + 1);
+                int cy = y1 + cellH * (j + 1);
+                polygon.addHole(regular(cx, cy, Math.min(cellW, cellH) / 3, 6));
+            }
+        }
+        return polygon;
+    }
+
+    static Polygon[] scene(int width, int height, int count, long seed) {
+        Random random = new Random(seed);
+        Polygon[] polygons = new Polygon[count];
+        int size = Math.max(8, (int) Math.sqrt((double) width * height / count));
+        for (int i = 0; i < count; i++) {
+            int cx = random.nextInt(width);
+            int cy = random.nextInt(height);
+            Polygon polygon = i % 2 == 0
+                    ? regular(cx, cy, size / 2, 5 + random.nextInt(6))
+                    : star(cx, cy, size / 2, size / 4, 5);
+            polygon.setFilled(i % 3 != 0);
+            polygons[i] = polygon;
+        }
+        return polygons;
+    }
+}
@@ -0,0 +1,70 @@
+package bench;
+
+import model.Polygon;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import rasterize.ClippedRaster;
+import rasterize.RasterIntBuffer;
+import rasterize.RenderCache;
+import rasterize.RenderStats;
+
+import java.util.concurrent.TimeUnit;
+
+// a cached scene redraw with the stage timing and counters Controller2D adds around it, statistics off and on
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatsBenchmark {
+
+    @Param({"false", "true"})
+    public boolean stats;
+
+    @Param({"100", "1000"})
+    public int polygons;
+
+    private ClippedRaster band;
+    private RenderCache[] caches;
+
+    @Setup
+    public void setup() {
+        RenderStats.setEnabled(stats);
+        band = new ClippedRaster(new RasterIntBuffer(1920, 1080));
+        Polygon[] scene = Shapes.scene(1920, 1080, polygons, 42);
+        caches = new RenderCache[scene.length];
+        for (int i = 0; i < scene.length; i++) {
+            caches[i] = Frames.buildCache(scene[i]);
+        }
+    }
+
+    @Benchmark
+    public void redrawSceneCached() {
+        long frame = RenderStats.begin(RenderStats.Stage.FRAME);
+        long start = RenderStats.begin(RenderStats.Stage.CLEAR);
+        band.clear();
+        RenderStats.end(RenderStats.Stage.CLEAR, start);
+        start = RenderStats.begin(RenderStats.Stage.OUTLINES);
+        for (RenderCache cache : caches) {
+            cache.replayOutline(band);
+        }
+        RenderStats.end(RenderStats.Stage.OUTLINES, start);
+        start = RenderStats.begin(RenderStats.Stage.FILLS);
+        for (RenderCache cache : caches) {
+            cache.replayFill(band);
+        }
+        RenderStats.end(RenderStats.Stage.FILLS, start);
+        band.flushCounts();
+        RenderStats.end(RenderStats.Stage.FRAME, frame);
+    }
+}
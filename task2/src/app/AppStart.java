@@ -1,6 +1,7 @@
 package app;
 
 import control.Controller2D;
+import rasterize.RenderStats;
 import view.Window;
 
 import javax.swing.*;
@@ -8,6 +9,7 @@ import javax.swing.*;
 public class AppStart {
 
     public static void main(String[] args) {
+        RenderStats.registerMBean();
         SwingUtilities.invokeLater(() -> {
             Window window = new Window();
             new Controller2D(window.getPanel());
@@ -1,36 +1,98 @@
 package control;
 
-import fill.SeedFill;
 import fill.ScanLine;
-import model.Line;
 import model.Point;
 import model.Polygon;
 import model.RegularPentagon;
+import model.SpatialGrid;
+import rasterize.AreaBooleanEngine;
+import rasterize.BooleanEngine;
+import rasterize.BooleanOperation;
+import rasterize.ClippedRaster;
+import rasterize.DirtyRegion;
 import rasterize.LineRasterizerGraphics;
 import rasterize.Raster;
+import rasterize.RenderCache;
+import rasterize.RenderStats;
+import rasterize.SegmentBooleanEngine;
+import rasterize.SpanSink;
+import rasterize.SweepBooleanEngine;
+import rasterize.TiledRenderer;
 import view.Panel;
 
 import javax.swing.*;
 import java.awt.event.*;
 import java.awt.Color;
-import java.awt.BasicStroke;
-import java.awt.geom.Area;
-import java.awt.geom.PathIterator;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
 
 public class Controller2D implements Controller {
 
     private final Panel panel;
     private final List<Polygon> completedPolygons = new ArrayList<>();
+    private final SpatialGrid polygonIndex = new SpatialGrid();
+    private final List<Polygon> candidates = new ArrayList<>();
+    // -Dgrafika.areaClipper=true switches back to the java.awt.geom.Area reference
+    private final BooleanEngine booleanEngine = Boolean.getBoolean("grafika.areaClipper")
+            ? new AreaBooleanEngine() : new SegmentBooleanEngine();
+    // U and X combine the whole scene in one sweep instead of pair by pair
+    private final SweepBooleanEngine sceneEngine = new SweepBooleanEngine();
     private Polygon currentPolygon = new Polygon();
     private LineRasterizerGraphics rasterizer;
+    private LineRasterizerGraphics overlayRasterizer;
+    private ClippedRaster sceneRaster;
+    private ClippedRaster overlayRaster;
+
+    private final DirtyRegion damage = new DirtyRegion();
+    private final DirtyRegion overlayRegion = new DirtyRegion();
+    private final DirtyRegion overlayDamage = new DirtyRegion();
+    private final DirtyRegion repaintRegion = new DirtyRegion();
+    private final DirtyRegion bounds = new DirtyRegion();
+    // everything drawn since the last present
+    private final DirtyRegion frameDamage = new DirtyRegion();
+
+    // the render thread sleeps until something wakes it and then draws everything that arrived meanwhile as one
+    // frame. waking it only sets a flag, so handing it work allocates nothing and a burst of input costs one frame
+    private final Thread renderThread = new Thread(this::renderLoop, "render");
+    private final Object renderLock = new Object();
+    private boolean framePosted;
+    // presses and releases in arrival order, the EDT adds under renderLock and the render thread takes them over
+    private final ArrayDeque<InputEvent> queuedInput = new ArrayDeque<>();
+    private final ArrayDeque<InputEvent> input = new ArrayDeque<>();
+    private final MouseInput mouseInput = new MouseInput();
+    private final KeyInput keyInput = new KeyInput();
+
+    private final TiledRenderer tiledRenderer = new TiledRenderer(
+            Integer.getInteger("grafika.renderThreads", Runtime.getRuntime().availableProcessors()));
+    private final List<Polygon> visiblePolygons = new ArrayList<>();
+    private final List<Polygon> uncachedPolygons = new ArrayList<>();
+    private int[] visibleBounds = new int[64];
+    // created once, a capturing lambda per frame would be a fresh allocation each redraw
+    private final IntConsumer cacheBuilder = i -> getRenderCache(uncachedPolygons.get(i));
+    private final TiledRenderer.BandRenderer bandRenderer = this::renderBand;
 
     private boolean drawing = false;
     private int mouseX, mouseY;
+    private int alignedX, alignedY;
+
+    // latest pointer state, written by the EDT and waiting for the next frame
+    private final Object pointerLock = new Object();
+    private int pointerX, pointerY;
+    private boolean pointerShift, pointerDragged, pointerPending, pointerPosted;
+    private long pointerEvents, pointerApplied, pointerRedraws;
+
+    // newest size seen by the EDT, width in the high half, NO_SIZE once the render thread took it
+    private static final long NO_SIZE = -1;
+    private final AtomicLong pendingSize = new AtomicLong(NO_SIZE);
 
     private static final int BOUNDARY_COLOR = 0xFFFFFF;
     private static final int FILL_COLOR = Color.GREEN.getRGB();
+    private static final double[] DIRECTIONS = {0, 45, 90, 135, 180, 225, 270, 315};
 
     private enum DrawMode {
         FREEFORM,
@@ -53,252 +115,445 @@ public class Controller2D implements Controller {
         this.panel = panel;
         initObjects(panel.getRaster());
         initListeners(panel);
+        renderThread.setDaemon(true);
+        renderThread.start();
     }
 
     public void initObjects(Raster raster) {
-        rasterizer = new LineRasterizerGraphics(raster);
+        sceneRaster = new ClippedRaster(raster);
+        rasterizer = new LineRasterizerGraphics(sceneRaster);
+        overlayRaster = new ClippedRaster(panel.getOverlay());
+        overlayRasterizer = new LineRasterizerGraphics(overlayRaster);
     }
 
+    // the listeners only record what happened for the render thread, which owns the scene and draws it while
+    // the EDT stays free to paint and take input
     @Override
     public void initListeners(Panel panel) {
-        panel.addMouseListener(new MouseAdapter() {
+        panel.addMouseListener(mouseInput);
+
+        // motion only records the latest pointer; it is applied once per frame by the frame callback
+        panel.addMouseMotionListener(new MouseMotionAdapter() {
             @Override
-            public void mousePressed(MouseEvent e) {
-                if (SwingUtilities.isLeftMouseButton(e)) {
-                    if (isFillMode) {
-                        handleFill(e.getX(), e.getY());
-                    } else {
-                        if (currentDrawMode == DrawMode.FREEFORM) {
-                            if (!isClippingMode) {
-                                if (e.isShiftDown() && !currentPolygon.getVertices().isEmpty()) {
-                                    Point last = currentPolygon.getVertices().get(currentPolygon.getVertices().size() - 1);
-                                    int[] aligned = getAlignedPoint(last.x, last.y, e.getX(), e.getY());
-                                    currentPolygon.addVertex(new Point(aligned[0], aligned[1]));
+            public void mouseMoved(MouseEvent e) {
+                queuePointer(e, false);
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                queuePointer(e, true);
+            }
+        });
+        panel.getFrameScheduler().setFrameCallback(this::schedulePointer);
+
+        panel.addKeyListener(keyInput);
+
+        panel.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                // a burst of resize events is applied once, with the last size
+                long size = ((long) panel.getWidth() << 32) | panel.getHeight();
+                if (pendingSize.getAndSet(size) == NO_SIZE) {
+                    wakeRenderThread();
+                }
+            }
+        });
+
+        panel.setFocusable(true);
+        panel.requestFocusInWindow();
+    }
+
+    private class MouseInput extends MouseAdapter {
+        @Override
+        public void mousePressed(MouseEvent e) {
+            queueInput(e);
+        }
+
+        @Override
+        public void mouseReleased(MouseEvent e) {
+            queueInput(e);
+        }
+
+        private void pressed(MouseEvent e) {
+            if (SwingUtilities.isLeftMouseButton(e)) {
+                if (isFillMode) {
+                    handleFill(e.getX(), e.getY());
+                } else {
+                    if (currentDrawMode == DrawMode.FREEFORM) {
+                        if (!isClippingMode) {
+                            if (e.isShiftDown() && currentPolygon.getVertexCount() > 0) {
+                                int last = currentPolygon.getVertexCount() - 1;
+                                alignPoint(currentPolygon.getX(last), currentPolygon.getY(last), e.getX(), e.getY());
+                                currentPolygon.addVertex(new Point(alignedX, alignedY));
+                            } else {
+                                currentPolygon.addVertex(new Point(e.getX(), e.getY()));
+                            }
+                            drawing = true;
+                            redrawDamaged();
+                        } else {
+                            if (subjectPolygon == null) {
+                                subjectPolygon = findPolygonAt(e.getX(), e.getY());
+                                if (subjectPolygon != null) {
+                                    System.out.println("Subject polygon selected.");
                                 } else {
-                                    currentPolygon.addVertex(new Point(e.getX(), e.getY()));
+                                    System.out.println("No polygon found at the clicked point.");
                                 }
-                                drawing = true;
-                                panel.repaint();
-                            } else {
-                                if (subjectPolygon == null) {
-                                    subjectPolygon = findPolygonAt(e.getX(), e.getY());
-                                    if (subjectPolygon != null) {
-                                        System.out.println("Subject polygon selected.");
-                                    } else {
-                                        System.out.println("No polygon found at the clicked point.");
-                                    }
-                                } else if (clipperPolygon == null) {
-                                    clipperPolygon = findPolygonAt(e.getX(), e.getY());
-                                    if (clipperPolygon != null) {
-                                        System.out.println("Clipper polygon selected.");
-                                        performClipping();
-                                    } else {
-                                        System.out.println("No polygon found at the clicked point.");
-                                    }
+                            } else if (clipperPolygon == null) {
+                                clipperPolygon = findPolygonAt(e.getX(), e.getY());
+                                if (clipperPolygon != null) {
+                                    System.out.println("Clipper polygon selected.");
+                                    performClipping();
+                                } else {
+                                    System.out.println("No polygon found at the clicked point.");
                                 }
                             }
-                        } else if (currentDrawMode == DrawMode.REGULAR_PENTAGON) {
-                            if (pentagonCenter == null) {
-                                pentagonCenter = new Point(e.getX(), e.getY());
-                                System.out.println("Pentagon center set at (" + pentagonCenter.x + ", " + pentagonCenter.y + "). Move mouse to set radius and click to finalize.");
+                        }
+                    } else if (currentDrawMode == DrawMode.REGULAR_PENTAGON) {
+                        if (pentagonCenter == null) {
+                            pentagonCenter = new Point(e.getX(), e.getY());
+                            System.out.println("Pentagon center set at (" + pentagonCenter.x + ", " + pentagonCenter.y + "). Move mouse to set radius and click to finalize.");
+                        } else {
+                            int radius = (int) Math.hypot(e.getX() - pentagonCenter.x, e.getY() - pentagonCenter.y);
+                            if (radius > 0) {
+                                RegularPentagon pentagon = new RegularPentagon(pentagonCenter, radius);
+                                performClippingWithPentagon(pentagon);
+                                System.out.println("Regular pentagon drawn and used as clipper with center (" + pentagonCenter.x + ", " + pentagonCenter.y + ") and radius " + radius + ".");
                             } else {
-                                int radius = (int) Math.hypot(e.getX() - pentagonCenter.x, e.getY() - pentagonCenter.y);
-                                if (radius > 0) {
-                                    RegularPentagon pentagon = new RegularPentagon(pentagonCenter, radius);
-                                    performClippingWithPentagon(pentagon);
-                                    System.out.println("Regular pentagon drawn and used as clipper with center (" + pentagonCenter.x + ", " + pentagonCenter.y + ") and radius " + radius + ".");
-                                } else {
-                                    System.out.println("Invalid radius. Pentagon not drawn.");
-                                }
-                                pentagonCenter = null;
-                                previewPentagon = null;
-                                redrawScene();
+                                System.out.println("Invalid radius. Pentagon not drawn.");
                             }
+                            pentagonCenter = null;
+                            previewPentagon = null;
+                            redrawDamaged();
                         }
                     }
-                } else if (SwingUtilities.isRightMouseButton(e)) {
-                    if (!isFillMode) {
-                        handleFill(e.getX(), e.getY());
-                    }
+                }
+            } else if (SwingUtilities.isRightMouseButton(e)) {
+                if (!isFillMode) {
+                    handleFill(e.getX(), e.getY());
                 }
             }
+        }
+    }
 
-            @Override
-            public void mouseReleased(MouseEvent e) {
-                drawing = false;
+    private class KeyInput extends KeyAdapter {
+        @Override
+        public void keyPressed(KeyEvent e) {
+            queueInput(e);
+        }
+
+        private void pressed(KeyEvent e) {
+            if (e.getKeyCode() == KeyEvent.VK_ENTER) {
+                finalizePolygon();
+            } else if (e.getKeyCode() == KeyEvent.VK_C) {
+                clearPolygons();
+            } else if (e.getKeyCode() == KeyEvent.VK_F) {
+                toggleFillMode();
+            } else if (e.getKeyCode() == KeyEvent.VK_P) {
+                toggleDrawMode();
+            } else if (e.getKeyCode() == KeyEvent.VK_O) {
+                toggleClippingMode();
+            } else if (e.getKeyCode() == KeyEvent.VK_U) {
+                combinePolygons(BooleanOperation.UNION);
+            } else if (e.getKeyCode() == KeyEvent.VK_X) {
+                combinePolygons(BooleanOperation.XOR);
+            } else if (e.getKeyCode() == KeyEvent.VK_S) {
+                System.out.println("Frame pacing: " + panel.getFrameScheduler().getStatistics());
+                System.out.println("Pointer: " + getPointerRedraws() + " redraws, "
+                        + getDroppedPointerEvents() + " dropped events.");
+                printRenderStatistics();
+            } else if (e.getKeyCode() == KeyEvent.VK_H) {
+                panel.setHudVisible(!panel.isHudVisible());
             }
-        });
+        }
 
-        panel.addMouseMotionListener(new MouseMotionAdapter() {
-            @Override
-            public void mouseMoved(MouseEvent e) {
+        private void finalizePolygon() {
+            if (currentDrawMode == DrawMode.FREEFORM && currentPolygon.getVertexCount() > 2 && !currentPolygon.isClosed()) {
+                currentPolygon.setClosed(true);
+                addPolygon(currentPolygon);
+                // it was only on the overlay until now
+                damage.add(currentPolygon);
+                currentPolygon = new Polygon();
+                drawing = false;
+                redrawDamaged();
+            }
+        }
 
-                boolean needRedraw = false;
+        private void clearPolygons() {
+            panel.clear();
+            completedPolygons.clear();
+            polygonIndex.clear();
+            currentPolygon.clear();
+            drawing = false;
+            pentagonCenter = null;
+            previewPentagon = null;
+            redrawScene();
+        }
 
-                if (currentDrawMode == DrawMode.REGULAR_PENTAGON && pentagonCenter != null) {
-                    int radius = (int) Math.hypot(e.getX() - pentagonCenter.x, e.getY() - pentagonCenter.y);
-                    if (radius > 0) {
-                        previewPentagon = new RegularPentagon(pentagonCenter, radius);
-                        needRedraw = true;
-                    }
-                }
+        private void toggleFillMode() {
+            isFillMode = !isFillMode;
+            if (isFillMode) {
+                System.out.println("Fill mode activated. Click on a polygon to fill.");
+            } else {
+                System.out.println("Fill mode deactivated.");
+            }
+        }
 
-                if (currentDrawMode == DrawMode.FREEFORM && !currentPolygon.getVertices().isEmpty() && !isClippingMode) {
-                    if (e.isShiftDown()) {
-                        Point last = currentPolygon.getVertices().get(currentPolygon.getVertices().size() - 1);
-                        int[] aligned = getAlignedPoint(last.x, last.y, e.getX(), e.getY());
-                        mouseX = aligned[0];
-                        mouseY = aligned[1];
-                    } else {
-                        mouseX = e.getX();
-                        mouseY = e.getY();
-                    }
-                    needRedraw = true;
-                }
+        private void toggleDrawMode() {
+            if (currentDrawMode == DrawMode.FREEFORM) {
+                currentDrawMode = DrawMode.REGULAR_PENTAGON;
+                pentagonCenter = null;
+                previewPentagon = null;
+                System.out.println("Draw mode set to Regular Pentagon");
+            } else if (currentDrawMode == DrawMode.REGULAR_PENTAGON) {
+                currentDrawMode = DrawMode.EDIT;
+                System.out.println("Draw mode set to Edit Polygon");
+            } else {
+                currentDrawMode = DrawMode.FREEFORM;
+                pentagonCenter = null;
+                previewPentagon = null;
+                System.out.println("Draw mode set to Freeform Polygon");
+            }
+        }
 
-                if (needRedraw) {
-                    redrawScene();
-                }
+        private void toggleClippingMode() {
+            isClippingMode = !isClippingMode;
+            if (isClippingMode) {
+                System.out.println("Clipping mode activated. Select subject polygon.");
+                subjectPolygon = null;
+                clipperPolygon = null;
+            } else {
+                System.out.println("Clipping mode deactivated.");
+                subjectPolygon = null;
+                clipperPolygon = null;
             }
+        }
+    }
 
-            @Override
-            public void mouseDragged(MouseEvent e) {
-                if (currentDrawMode == DrawMode.FREEFORM && drawing && !isClippingMode) {
-                    if (e.isShiftDown() && !currentPolygon.getVertices().isEmpty()) {
-                        Point last = currentPolygon.getVertices().get(currentPolygon.getVertices().size() - 1);
-                        int[] aligned = getAlignedPoint(last.x, last.y, e.getX(), e.getY());
-                        mouseX = aligned[0];
-                        mouseY = aligned[1];
-                    } else {
-                        mouseX = e.getX();
-                        mouseY = e.getY();
+    // EDT
+    private void queueInput(InputEvent e) {
+        synchronized (renderLock) {
+            queuedInput.add(e);
+            framePosted = true;
+            renderLock.notify();
+        }
+    }
+
+    private void wakeRenderThread() {
+        synchronized (renderLock) {
+            framePosted = true;
+            renderLock.notify();
+        }
+    }
+
+    private void renderLoop() {
+        while (true) {
+            synchronized (renderLock) {
+                while (!framePosted) {
+                    try {
+                        renderLock.wait();
+                    } catch (InterruptedException e) {
+                        return;
                     }
-                    redrawScene();
-                    drawDynamicLines(mouseX, mouseY);
                 }
-            }
-        });
-
-        panel.addKeyListener(new KeyAdapter() {
-            @Override
-            public void keyPressed(KeyEvent e) {
-                if (e.getKeyCode() == KeyEvent.VK_ENTER) {
-                    finalizePolygon();
-                } else if (e.getKeyCode() == KeyEvent.VK_C) {
-                    clearPolygons();
-                } else if (e.getKeyCode() == KeyEvent.VK_F) {
-                    toggleFillMode();
-                } else if (e.getKeyCode() == KeyEvent.VK_P) {
-                    toggleDrawMode();
-                } else if (e.getKeyCode() == KeyEvent.VK_O) {
-                    toggleClippingMode();
+                framePosted = false;
+                for (InputEvent e = queuedInput.poll(); e != null; e = queuedInput.poll()) {
+                    input.add(e);
                 }
             }
 
-            private void finalizePolygon() {
-                if (currentDrawMode == DrawMode.FREEFORM && currentPolygon.getVertices().size() > 2 && !currentPolygon.isClosed()) {
-                    currentPolygon.setClosed(true);
-                    completedPolygons.add(currentPolygon);
-                    currentPolygon = new Polygon();
-                    drawing = false;
-                    redrawScene();
+            long start = RenderStats.begin(RenderStats.Stage.FRAME);
+            try {
+                applyResize();
+                for (InputEvent e = input.poll(); e != null; e = input.poll()) {
+                    handleInput(e);
                 }
+                applyPointer();
+            } catch (RuntimeException e) {
+                // reported like an uncaught exception, but the thread goes on with the next frame
+                renderThread.getUncaughtExceptionHandler().uncaughtException(renderThread, e);
+            }
+            if (present()) {
+                RenderStats.end(RenderStats.Stage.FRAME, start);
             }
+        }
+    }
 
-            private void clearPolygons() {
-                panel.clear();
-                completedPolygons.clear();
-                currentPolygon.clear();
-                drawing = false;
-                pentagonCenter = null;
-                previewPentagon = null;
-                redrawScene();
+    private void handleInput(InputEvent e) {
+        if (e.getID() == MouseEvent.MOUSE_PRESSED) {
+            mouseInput.pressed((MouseEvent) e);
+        } else if (e.getID() == MouseEvent.MOUSE_RELEASED) {
+            drawing = false;
+        } else if (e.getID() == KeyEvent.KEY_PRESSED) {
+            keyInput.pressed((KeyEvent) e);
+        }
+    }
+
+    // render thread
+    private void applyResize() {
+        long size = pendingSize.getAndSet(NO_SIZE);
+        if (size == NO_SIZE) {
+            return;
+        }
+        panel.resizeBuffers((int) (size >> 32), (int) size);
+        sceneRaster.setTarget(panel.getRaster());
+        overlayRaster.setTarget(panel.getOverlay());
+        redrawScene();
+    }
+
+    // hands what was drawn to the panel; from here on the rasters draw into the next back buffers
+    private boolean present() {
+        sceneRaster.flushCounts();
+        overlayRaster.flushCounts();
+        if (frameDamage.isEmpty()) {
+            return false;
+        }
+        long start = RenderStats.begin(RenderStats.Stage.PUBLISH);
+        panel.present(frameDamage);
+        RenderStats.end(RenderStats.Stage.PUBLISH, start);
+        frameDamage.clear();
+        sceneRaster.setTarget(panel.getRaster());
+        overlayRaster.setTarget(panel.getOverlay());
+        return true;
+    }
+
+    private void printRenderStatistics() {
+        if (!RenderStats.isEnabled()) {
+            System.out.println("Render statistics are off, run with -Dgrafika.stats=true or press H.");
+            return;
+        }
+        System.out.println("Render: " + RenderStats.getStatistics() + ".");
+        for (RenderStats.Stage stage : RenderStats.Stage.values()) {
+            System.out.println("  " + RenderStats.getStatistics(stage));
+        }
+    }
+
+    // EDT
+    private void queuePointer(MouseEvent e, boolean dragged) {
+        synchronized (pointerLock) {
+            pointerEvents++;
+            pointerX = e.getX();
+            pointerY = e.getY();
+            pointerShift = e.isShiftDown();
+            pointerDragged = dragged;
+            if (pointerPending) {
+                return;
             }
+            pointerPending = true;
+        }
+        panel.getFrameScheduler().requestCallback();
+    }
 
-            private void toggleFillMode() {
-                isFillMode = !isFillMode;
-                if (isFillMode) {
-                    System.out.println("Fill mode activated. Click on a polygon to fill.");
-                } else {
-                    System.out.println("Fill mode deactivated.");
-                }
+    // EDT, at the start of a frame
+    private void schedulePointer() {
+        synchronized (pointerLock) {
+            if (!pointerPending || pointerPosted) {
+                return;
             }
+            pointerPosted = true;
+        }
+        wakeRenderThread();
+    }
 
-            private void toggleDrawMode() {
-                if (currentDrawMode == DrawMode.FREEFORM) {
-                    currentDrawMode = DrawMode.REGULAR_PENTAGON;
-                    pentagonCenter = null;
-                    previewPentagon = null;
-                    System.out.println("Draw mode set to Regular Pentagon");
-                } else if (currentDrawMode == DrawMode.REGULAR_PENTAGON) {
-                    currentDrawMode = DrawMode.EDIT;
-                    System.out.println("Draw mode set to Edit Polygon");
-                } else {
-                    currentDrawMode = DrawMode.FREEFORM;
-                    pentagonCenter = null;
-                    previewPentagon = null;
-                    System.out.println("Draw mode set to Freeform Polygon");
-                }
+    // render thread, applies the pointer once the frame callback passed it on
+    private void applyPointer() {
+        int x, y;
+        boolean shift, dragged;
+        synchronized (pointerLock) {
+            if (!pointerPosted) {
+                return;
+            }
+            pointerPending = false;
+            pointerPosted = false;
+            pointerApplied++;
+            x = pointerX;
+            y = pointerY;
+            shift = pointerShift;
+            dragged = pointerDragged;
+        }
+        if (dragged ? pointerDragged(x, y, shift) : pointerMoved(x, y, shift)) {
+            synchronized (pointerLock) {
+                pointerRedraws++;
             }
+            redrawDamaged();
+        }
+    }
+
+    private boolean pointerMoved(int x, int y, boolean shift) {
+
+        boolean needRedraw = false;
 
-            private void toggleClippingMode() {
-                isClippingMode = !isClippingMode;
-                if (isClippingMode) {
-                    System.out.println("Clipping mode activated. Select subject polygon.");
-                    subjectPolygon = null;
-                    clipperPolygon = null;
+        if (currentDrawMode == DrawMode.REGULAR_PENTAGON && pentagonCenter != null) {
+            int radius = (int) Math.hypot(x - pentagonCenter.x, y - pentagonCenter.y);
+            if (radius > 0) {
+                // reshaped in place from the unit circle table, no allocation or trig per mouse move
+                if (previewPentagon == null) {
+                    previewPentagon = new RegularPentagon(pentagonCenter, radius);
                 } else {
-                    System.out.println("Clipping mode deactivated.");
-                    subjectPolygon = null;
-                    clipperPolygon = null;
+                    previewPentagon.set(pentagonCenter, radius);
                 }
+                needRedraw = true;
             }
-        });
+        }
 
-        panel.addComponentListener(new ComponentAdapter() {
-            @Override
-            public void componentResized(ComponentEvent e) {
-                panel.resize();
-                initObjects(panel.getRaster());
-                redrawScene();
-            }
-        });
+        if (currentDrawMode == DrawMode.FREEFORM && currentPolygon.getVertexCount() > 0 && !isClippingMode) {
+            setMouse(x, y, shift);
+            needRedraw = true;
+        }
 
-        panel.setFocusable(true);
-        panel.requestFocusInWindow();
+        return needRedraw;
     }
 
-    private void handleFill(int x, int y) {
+    private boolean pointerDragged(int x, int y, boolean shift) {
+        if (currentDrawMode == DrawMode.FREEFORM && drawing && !isClippingMode) {
+            setMouse(x, y, shift);
+            return true;
+        }
+        return false;
+    }
 
-        Polygon targetPolygon = findPolygonAt(x, y);
-        if (targetPolygon != null && targetPolygon.isClosed()) {
-            Raster raster = panel.getRaster();
+    private void setMouse(int x, int y, boolean shift) {
+        if (shift && currentPolygon.getVertexCount() > 0) {
+            int last = currentPolygon.getVertexCount() - 1;
+            alignPoint(currentPolygon.getX(last), currentPolygon.getY(last), x, y);
+            mouseX = alignedX;
+            mouseY = alignedY;
+        } else {
+            mouseX = x;
+            mouseY = y;
+        }
+    }
 
-            if (targetPolygon.getFillMode() == FillMode.SEED_FILL) {
+    public long getPointerRedraws() {
+        synchronized (pointerLock) {
+            return pointerRedraws;
+        }
+    }
 
-                Point seed = computeSeedPoint(targetPolygon);
-                SeedFill seedFill = new SeedFill(raster, seed.x, seed.y, FILL_COLOR, BOUNDARY_COLOR);
-                seedFill.fill();
-                System.out.println("Seed Fill applied to polygon.");
-                targetPolygon.setFilled(true);
-                targetPolygon.setFillMode(FillMode.SEED_FILL);
-            } else if (targetPolygon.getFillMode() == FillMode.SCAN_LINE) {
+    // pointer events replaced by a later one before a frame applied them
+    public long getDroppedPointerEvents() {
+        synchronized (pointerLock) {
+            return pointerEvents - pointerApplied;
+        }
+    }
 
-                ScanLine scanLineFill = new ScanLine(raster, targetPolygon, FILL_COLOR, BOUNDARY_COLOR);
-                scanLineFill.fill();
-                System.out.println("Scan Line Fill applied to polygon.");
-                targetPolygon.setFilled(true);
-                targetPolygon.setFillMode(FillMode.SCAN_LINE);
-            }
+    private void handleFill(int x, int y) {
 
-            panel.repaint();
+        Polygon targetPolygon = findPolygonAt(x, y);
+        if (targetPolygon != null && targetPolygon.isClosed()) {
+            // only the model changes; the redraw rebuilds the polygon's cache with its fill, so the click shows
+            // the same pixels every later redraw does
+            targetPolygon.setFilled(true);
+            System.out.println("Fill applied to polygon.");
+            damage.add(targetPolygon);
+            redrawDamaged();
         } else {
             System.out.println("No closed polygon found at the clicked point.");
         }
     }
 
     private Polygon findPolygonAt(int x, int y) {
-        for (Polygon polygon : completedPolygons) {
+        candidates.clear();
+        for (Polygon polygon : polygonIndex.query(x, y, candidates)) {
             if (isPointInsidePolygon(x, y, polygon)) {
                 return polygon;
             }
@@ -307,61 +562,29 @@ public class Controller2D implements Controller {
     }
 
     private boolean isPointInsidePolygon(int x, int y, Polygon polygon) {
-        boolean inside = false;
-        List<Point> vertices = polygon.getVertices();
-        int n = vertices.size();
-        for (int i = 0, j = n - 1; i < n; j = i++) {
-            int xi = vertices.get(i).x, yi = vertices.get(i).y;
-            int xj = vertices.get(j).x, yj = vertices.get(j).y;
-
-            boolean intersect = ((yi > y) != (yj > y)) &&
-                    (x < (xj - xi) * (y - yi) / (double) (yj - yi) + xi);
-            if (intersect) {
-                inside = !inside;
-            }
-        }
+        boolean inside = polygon.isPointInsidePolygon(x, y);
         System.out.println("Point (" + x + ", " + y + ") inside polygon: " + inside);
         return inside;
     }
 
-    private Point computeSeedPoint(Polygon polygon) {
-        double centroidX = 0, centroidY = 0;
-        double signedArea = 0;
-        double x0, y0, x1, y1;
-        int n = polygon.getVertices().size();
-        for (int i = 0; i < n; i++) {
-            int j = (i + 1) % n;
-            x0 = polygon.getVertices().get(i).x;
-            y0 = polygon.getVertices().get(i).y;
-            x1 = polygon.getVertices().get(j).x;
-            y1 = polygon.getVertices().get(j).y;
-            double a = x0 * y1 - x1 * y0;
-            signedArea += a;
-            centroidX += (x0 + x1) * a;
-            centroidY += (y0 + y1) * a;
-        }
-        signedArea *= 0.5;
-        centroidX /= (6 * signedArea);
-        centroidY /= (6 * signedArea);
-        return new Point((int) centroidX, (int) centroidY);
-    }
-
-    private int[] getAlignedPoint(int x1, int y1, int x2, int y2) {
+    // snaps the point (x2, y2) to the nearest multiple of 45 degrees around (x1, y1) into alignedX and alignedY
+    private void alignPoint(int x1, int y1, int x2, int y2) {
         int dx = x2 - x1;
         int dy = y2 - y1;
+        alignedX = x2;
+        alignedY = y2;
 
         if (dx == 0 && dy == 0) {
-            return new int[]{x2, y2};
+            return;
         }
 
         double angle = Math.toDegrees(Math.atan2(dy, dx));
         angle = (angle + 360) % 360;
 
-        double[] directions = {0, 45, 90, 135, 180, 225, 270, 315};
         double closestAngle = 0;
         double minDifference = 360;
 
-        for (double dir : directions) {
+        for (double dir : DIRECTIONS) {
             double difference = Math.abs(angle - dir);
             difference = Math.min(difference, 360 - difference);
             if (difference < minDifference) {
@@ -375,52 +598,51 @@ public class Controller2D implements Controller {
         switch ((int) Math.round(closestAngle)) {
             case 0:
             case 180:
-                return new int[]{x2, y1};
+                alignedY = y1;
+                break;
             case 45:
             case 225:
-                return new int[]{
-                        x1 + (int) Math.signum(dx) * offset,
-                        y1 + (int) Math.signum(dy) * offset
-                };
+                alignedX = x1 + (int) Math.signum(dx) * offset;
+                alignedY = y1 + (int) Math.signum(dy) * offset;
+                break;
             case 90:
             case 270:
-                return new int[]{x1, y2};
+                alignedX = x1;
+                break;
             case 135:
-                return new int[]{
-                        x1 - offset,
-                        y1 + offset
-                };
+                alignedX = x1 - offset;
+                alignedY = y1 + offset;
+                break;
             case 315:
-                return new int[]{
-                        x1 + offset,
-                        y1 - offset
-                };
+                alignedX = x1 + offset;
+                alignedY = y1 - offset;
+                break;
             default:
                 break;
         }
-
-        return new int[]{x2, y2};
     }
 
     private void performClippingWithPentagon(RegularPentagon pentagon) {
-        Area pentagonArea = polygonToArea(pentagon);
-
         List<Polygon> polygonsToRemove = new ArrayList<>();
         List<Polygon> polygonsToAdd = new ArrayList<>();
 
-        for (Polygon polygon : new ArrayList<>(completedPolygons)) {
-            Area polygonArea = polygonToArea(polygon);
-            Area intersection = new Area(pentagonArea);
-            intersection.intersect(polygonArea);
+        damage.add(pentagon);
 
-            if (!intersection.isEmpty()) {
+        bounds.clear();
+        bounds.add(pentagon);
+        List<Polygon> nearby = polygonIndex.query(bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY(), new ArrayList<>());
+
+        for (Polygon polygon : nearby) {
+            long start = RenderStats.begin(RenderStats.Stage.CLIP);
+            boolean overlaps = !booleanEngine.apply(polygon, pentagon, BooleanOperation.INTERSECTION).isEmpty();
+            RenderStats.end(RenderStats.Stage.CLIP, start);
+            if (overlaps) {
+                damage.add(polygon);
                 if (isPentagonInsideAndNotTouching(pentagon, polygon)) {
                     System.out.println("Pentagon is completely inside the polygon. Adding as a hole.");
 
-                    clearInsidePentagon(pentagon, panel.getRaster());
-
                     Polygon hole = new Polygon();
-                    hole.getVertices().addAll(pentagon.getVertices());
+                    hole.addVertices(pentagon);
                     hole.setClosed(true);
                     hole.setHole(true);
 
@@ -429,13 +651,7 @@ public class Controller2D implements Controller {
                 else {
 
                     System.out.println("Performing regular clipping with pentagon.");
-                    polygonArea.subtract(pentagonArea);
-
-                    List<Polygon> clippedPolygons = areaToPolygons(polygonArea, polygon.isFilled(), polygon.getFillMode());
-
-                    for (Polygon clippedPolygon : clippedPolygons) {
-                        clippedPolygon.getHoles().addAll(polygon.getHoles());
-                    }
+                    List<Polygon> clippedPolygons = clip(polygon, pentagon);
 
                     polygonsToRemove.add(polygon);
                     polygonsToAdd.addAll(clippedPolygons);
@@ -443,22 +659,41 @@ public class Controller2D implements Controller {
             }
         }
 
-        completedPolygons.removeAll(polygonsToRemove);
-        completedPolygons.addAll(polygonsToAdd);
+        removePolygons(polygonsToRemove);
+        for (Polygon polygon : polygonsToAdd) {
+            addPolygon(polygon);
+        }
 
-        redrawScene();
+        redrawDamaged();
     }
 
     private boolean isPentagonInsideAndNotTouching(RegularPentagon pentagon, Polygon polygon) {
-        Area polygonArea = polygonToArea(polygon);
-        Area pentagonArea = polygonToArea(pentagon);
-
-        if (!polygonArea.contains(pentagonArea.getBounds2D())) {
+        if (pentagon.getMinX() < polygon.getMinX() || pentagon.getMaxX() > polygon.getMaxX()
+                || pentagon.getMinY() < polygon.getMinY() || pentagon.getMaxY() > polygon.getMaxY()) {
             return false;
         }
 
-        for (Point vertex : pentagon.getVertices()) {
-            if (isPointOnPolygonBoundary(vertex, polygon)) {
+        if (polygon.isConvex() && polygon.getHoles().isEmpty()) {
+            // a convex outline contains the pentagon's bounding box when it contains its corners
+            if (!polygon.isPointInsidePolygon(pentagon.getMinX(), pentagon.getMinY())
+                    || !polygon.isPointInsidePolygon(pentagon.getMaxX(), pentagon.getMinY())
+                    || !polygon.isPointInsidePolygon(pentagon.getMinX(), pentagon.getMaxY())
+                    || !polygon.isPointInsidePolygon(pentagon.getMaxX(), pentagon.getMaxY())) {
+                return false;
+            }
+        } else {
+            Polygon box = new Polygon();
+            box.addVertex(pentagon.getMinX(), pentagon.getMinY());
+            box.addVertex(pentagon.getMaxX(), pentagon.getMinY());
+            box.addVertex(pentagon.getMaxX(), pentagon.getMaxY());
+            box.addVertex(pentagon.getMinX(), pentagon.getMaxY());
+            if (!booleanEngine.apply(box, polygon, BooleanOperation.DIFFERENCE).isEmpty()) {
+                return false;
+            }
+        }
+
+        for (int i = 0; i < pentagon.getVertexCount(); i++) {
+            if (isPointOnPolygonBoundary(pentagon.getX(i), pentagon.getY(i), polygon)) {
                 return false;
             }
         }
@@ -466,257 +701,297 @@ public class Controller2D implements Controller {
         return true;
     }
 
-    private boolean isPointOnPolygonBoundary(Point point, Polygon polygon) {
-        List<Point> vertices = polygon.getVertices();
-        for (int i = 0; i < vertices.size(); i++) {
-            Point p1 = vertices.get(i);
-            Point p2 = vertices.get((i + 1) % vertices.size());
-            if (isPointOnLineSegment(point, p1, p2)) {
+    private boolean isPointOnPolygonBoundary(int x, int y, Polygon polygon) {
+        int n = polygon.getVertexCount();
+        for (int i = 0; i < n; i++) {
+            int j = (i + 1) % n;
+            if (isPointOnLineSegment(x, y, polygon.getX(i), polygon.getY(i), polygon.getX(j), polygon.getY(j))) {
                 return true;
             }
         }
         return false;
     }
 
-    private boolean isPointOnLineSegment(Point p, Point a, Point b) {
-        return Math.abs((p.x - a.x) * (b.y - a.y) - (p.y - a.y) * (b.x - a.x)) < 1e-6 &&
-                p.x >= Math.min(a.x, b.x) && p.x <= Math.max(a.x, b.x) &&
-                p.y >= Math.min(a.y, b.y) && p.y <= Math.max(a.y, b.y);
-    }
-
-    private void clearInsidePentagon(Polygon pentagon, Raster raster) {
-        Point seed = computeSeedPoint(pentagon);
-
-        SeedFill seedFill = new SeedFill(raster, seed.x, seed.y, 0x000000, BOUNDARY_COLOR);
-        seedFill.fill();
-
-        drawPolygonOutline(pentagon, Color.BLACK);
+    private boolean isPointOnLineSegment(int px, int py, int ax, int ay, int bx, int by) {
+        return Math.abs((px - ax) * (by - ay) - (py - ay) * (bx - ax)) < 1e-6 &&
+                px >= Math.min(ax, bx) && px <= Math.max(ax, bx) &&
+                py >= Math.min(ay, by) && py <= Math.max(ay, by);
     }
 
-    private void drawPolygonOutline(Polygon polygon, Color color) {
-        List<Point> vertices = polygon.getVertices();
+    private void drawPolygonOutline(LineRasterizerGraphics rasterizer, Polygon polygon, int color) {
         rasterizer.setColor(color);
-
-        for (int i = 0; i < vertices.size() - 1; i++) {
-            Point p1 = vertices.get(i);
-            Point p2 = vertices.get(i + 1);
-            rasterizer.rasterize(new Line(p1.x, p1.y, p2.x, p2.y, color.getRGB()));
-        }
-
-        if (polygon.isClosed() && vertices.size() > 2) {
-            Point first = vertices.get(0);
-            Point last = vertices.get(vertices.size() - 1);
-            rasterizer.rasterize(new Line(last.x, last.y, first.x, first.y, color.getRGB()));
-        }
+        rasterizer.drawOutline(polygon);
 
         if (polygon.isHole()) {
-            rasterizer.setColor(Color.BLACK);
-            for (int i = 0; i < vertices.size() - 1; i++) {
-                Point p1 = vertices.get(i);
-                Point p2 = vertices.get(i + 1);
-                rasterizer.rasterize(new Line(p1.x, p1.y, p2.x, p2.y, Color.BLACK.getRGB()));
-            }
-            if (polygon.isClosed() && vertices.size() > 2) {
-                Point first = vertices.get(0);
-                Point last = vertices.get(vertices.size() - 1);
-                rasterizer.rasterize(new Line(last.x, last.y, first.x, first.y, Color.BLACK.getRGB()));
-            }
+            rasterizer.setColor(Color.BLACK.getRGB());
+            rasterizer.drawOutline(polygon);
         }
     }
 
-    private void clearInsidePentagon(Area area) {
-        PathIterator iterator = area.getPathIterator(null);
-        double[] coords = new double[6];
-
-        while (!iterator.isDone()) {
-            int type = iterator.currentSegment(coords);
-
-            if (type == PathIterator.SEG_MOVETO || type == PathIterator.SEG_LINETO) {
-                int x = (int) coords[0];
-                int y = (int) coords[1];
-
-                if (x >= 0 && y >= 0 && x < panel.getRaster().getWidth() && y < panel.getRaster().getHeight()) {
-                    panel.getRaster().setPixel(x, y, 0x000000);
-                }
-            }
-            iterator.next();
+    private List<Polygon> clip(Polygon subject, Polygon clipper) {
+        long start = RenderStats.begin(RenderStats.Stage.CLIP);
+        List<Polygon> clippedPolygons = booleanEngine.apply(subject, clipper, BooleanOperation.DIFFERENCE);
+        RenderStats.end(RenderStats.Stage.CLIP, start);
+        for (Polygon polygon : clippedPolygons) {
+            polygon.setFilled(subject.isFilled());
+            polygon.setFillMode(subject.getFillMode());
         }
+        return clippedPolygons;
     }
 
-    private Area polygonToArea(Polygon polygon) {
-        java.awt.Polygon awtPolygon = new java.awt.Polygon();
-        for (Point p : polygon.getVertices()) {
-            awtPolygon.addPoint(p.x, p.y);
-        }
-
-        Area area = new Area(awtPolygon);
-
-        for (Polygon hole : polygon.getHoles()) {
-            java.awt.Polygon awtHole = new java.awt.Polygon();
-            for (Point p : hole.getVertices()) {
-                awtHole.addPoint(p.x, p.y);
-            }
-            area.subtract(new Area(awtHole));
-        }
-
-        return area;
+    private void addPolygon(Polygon polygon) {
+        completedPolygons.add(polygon);
+        polygonIndex.add(polygon);
     }
 
-    private Area polygonToOutlineArea(Polygon polygon) {
-        Area filledArea = polygonToArea(polygon);
-        BasicStroke stroke = new BasicStroke(1);
-        return new Area(stroke.createStrokedShape(filledArea));
-    }
-
-    private List<Polygon> areaToPolygons(Area area, boolean filled, FillMode fillMode) {
-        List<Polygon> polygons = new ArrayList<>();
-        PathIterator iterator = area.getPathIterator(null);
-        double[] coords = new double[6];
-        List<Point> points = new ArrayList<>();
-        Polygon currentPolygon = null;
-
-        while (!iterator.isDone()) {
-            int type = iterator.currentSegment(coords);
-
-            if (type == PathIterator.SEG_MOVETO || type == PathIterator.SEG_LINETO) {
-
-                if (currentPolygon == null) {
-                    currentPolygon = new Polygon();
-                }
-                points.add(new Point((int) coords[0], (int) coords[1]));
-            } else if (type == PathIterator.SEG_CLOSE) {
-
-                if (currentPolygon != null) {
-                    currentPolygon.getVertices().addAll(points);
-                    currentPolygon.setClosed(true);
-                    currentPolygon.setFilled(filled);
-                    currentPolygon.setFillMode(fillMode);
-                    polygons.add(currentPolygon);
-                    points.clear();
-                    currentPolygon = null;
-                }
-            }
-
-            iterator.next();
+    private void removePolygons(List<Polygon> polygons) {
+        completedPolygons.removeAll(new HashSet<>(polygons));
+        for (Polygon polygon : polygons) {
+            polygonIndex.remove(polygon);
         }
-
-        return polygons;
     }
 
     private void performClipping() {
         if (subjectPolygon != null && clipperPolygon != null) {
-            Area subjectArea = polygonToArea(subjectPolygon);
-            Area clipperArea = polygonToArea(clipperPolygon);
+            if (clipperPolygon.getMinX() > subjectPolygon.getMaxX() || clipperPolygon.getMaxX() < subjectPolygon.getMinX()
+                    || clipperPolygon.getMinY() > subjectPolygon.getMaxY() || clipperPolygon.getMaxY() < subjectPolygon.getMinY()) {
+                System.out.println("Polygons do not overlap. Nothing to clip.");
+                subjectPolygon = null;
+                clipperPolygon = null;
+                return;
+            }
 
-            subjectArea.subtract(clipperArea);
+            damage.add(subjectPolygon);
 
-            List<Polygon> clippedPolygons = areaToPolygons(subjectArea, subjectPolygon.isFilled(), subjectPolygon.getFillMode());
+            List<Polygon> clippedPolygons = clip(subjectPolygon, clipperPolygon);
 
             if (!clippedPolygons.isEmpty()) {
                 System.out.println("Clipping performed. Added " + clippedPolygons.size() + " polygons.");
 
-                completedPolygons.remove(subjectPolygon);
+                removePolygons(List.of(subjectPolygon));
 
-                completedPolygons.addAll(clippedPolygons);
+                for (Polygon polygon : clippedPolygons) {
+                    addPolygon(polygon);
+                }
             } else {
                 System.out.println("Clipping resulted in an empty polygon. Removing subject polygon.");
-                completedPolygons.remove(subjectPolygon);
+                removePolygons(List.of(subjectPolygon));
             }
 
             subjectPolygon = null;
             clipperPolygon = null;
 
-            redrawScene();
+            redrawDamaged();
         }
     }
 
-    private void redrawScene() {
-        panel.clear();
-
-        for (Polygon polygon : completedPolygons) {
-            drawPolygonOutline(polygon, Color.WHITE);
+    private void combinePolygons(BooleanOperation operation) {
+        if (completedPolygons.size() < 2) {
+            System.out.println("Nothing to combine.");
+            return;
+        }
 
-            for (Polygon hole : polygon.getHoles()) {
-                drawPolygonOutline(hole, Color.WHITE);
+        List<Polygon> polygons = new ArrayList<>(completedPolygons);
+        long start = RenderStats.begin(RenderStats.Stage.CLIP);
+        List<Polygon> combined = sceneEngine.apply(polygons, operation);
+        RenderStats.end(RenderStats.Stage.CLIP, start);
+
+        // the results take the fill of the first filled polygon
+        Polygon filled = null;
+        for (Polygon polygon : polygons) {
+            damage.add(polygon);
+            if (filled == null && polygon.isFilled()) {
+                filled = polygon;
             }
         }
-
-        for (Polygon polygon : completedPolygons) {
-            if (polygon.isFilled()) {
-                fillPolygonWithHoles(polygon);
+        removePolygons(polygons);
+        for (Polygon polygon : combined) {
+            if (filled != null) {
+                polygon.setFilled(true);
+                polygon.setFillMode(filled.getFillMode());
             }
+            addPolygon(polygon);
         }
 
-        drawPolygonOutline(currentPolygon, Color.WHITE);
+        System.out.println(operation + " of " + polygons.size() + " polygons resulted in " + combined.size() + " polygons.");
+        subjectPolygon = null;
+        clipperPolygon = null;
+        redrawDamaged();
+    }
+
+    private void redrawScene() {
+        Raster raster = panel.getRaster();
+        damage.add(0, 0, raster.getWidth() - 1, raster.getHeight() - 1);
+        overlayRegion.add(0, 0, raster.getWidth() - 1, raster.getHeight() - 1);
+        redrawDamaged();
+    }
+
+    private void redrawDamaged() {
+        repaintRegion.clear();
 
-        if (previewPentagon != null) {
-            drawPolygonOutline(previewPentagon, Color.WHITE);
+        damage.clip(0, 0, sceneRaster.getWidth() - 1, sceneRaster.getHeight() - 1);
+        if (!damage.isEmpty()) {
+            renderScene();
+            repaintRegion.add(damage);
         }
+        damage.clear();
 
-        if (currentDrawMode == DrawMode.FREEFORM && !currentPolygon.getVertices().isEmpty() && !isClippingMode) {
-            drawDynamicLines(mouseX, mouseY);
-        }
+        long start = RenderStats.begin(RenderStats.Stage.OVERLAY);
+        renderOverlay();
+        RenderStats.end(RenderStats.Stage.OVERLAY, start);
 
-        panel.repaint();
+        if (!repaintRegion.isEmpty()) {
+            frameDamage.add(repaintRegion);
+        }
     }
 
-    private void fillPolygonWithHoles(Polygon polygon) {
-        Raster raster = panel.getRaster();
+    private void renderScene() {
+        sceneRaster.setClip(damage);
+        visiblePolygons.clear();
+        candidates.clear();
+        polygonIndex.query(damage.getMinX(), damage.getMinY(), damage.getMaxX(), damage.getMaxY(), candidates);
+        uncachedPolygons.clear();
+        long vertices = 0;
+        for (int i = 0; i < candidates.size(); i++) {
+            Polygon polygon = candidates.get(i);
+            if (isInClip(polygon)) {
+                addVisiblePolygon(polygon);
+                vertices += polygon.getVertexCount();
+                if (polygon.getRenderCache() == null) {
+                    uncachedPolygons.add(polygon);
+                }
+            }
+        }
+        sceneRaster.resetClip();
+        RenderStats.addPolygons(visiblePolygons.size(), vertices);
 
-        Area area = polygonToArea(polygon);
+        if (!uncachedPolygons.isEmpty()) {
+            tiledRenderer.forEach(uncachedPolygons.size(), cacheBuilder);
+        }
+        tiledRenderer.render(panel.getRaster(), damage, bandRenderer);
+    }
 
-        for (int y = 0; y < raster.getHeight(); y++) {
-            for (int x = 0; x < raster.getWidth(); x++) {
-                if (area.contains(x, y)) {
+    // on the pool's threads, so the stage times are per band
+    private void renderBand(ClippedRaster band) {
+        long start = RenderStats.begin(RenderStats.Stage.CLEAR);
+        band.clear();
+        RenderStats.end(RenderStats.Stage.CLEAR, start);
+        start = RenderStats.begin(RenderStats.Stage.OUTLINES);
+        int count = visiblePolygons.size();
+
+        for (int i = 0; i < count; i++) {
+            if (isInBand(band, i)) {
+                visiblePolygons.get(i).getRenderCache().replayOutline(band);
+            }
+        }
+        RenderStats.end(RenderStats.Stage.OUTLINES, start);
+        start = RenderStats.begin(RenderStats.Stage.FILLS);
 
-                    raster.setPixel(x, y, FILL_COLOR);
-                }
+        for (int i = 0; i < count; i++) {
+            if (visiblePolygons.get(i).isFilled() && isInBand(band, i)) {
+                visiblePolygons.get(i).getRenderCache().replayFill(band);
             }
         }
+        RenderStats.end(RenderStats.Stage.FILLS, start);
     }
 
-    private void drawPolygon(Polygon polygon) {
+    private void addVisiblePolygon(Polygon polygon) {
+        int i = visiblePolygons.size() * 4;
+        if (i + 4 > visibleBounds.length) {
+            visibleBounds = Arrays.copyOf(visibleBounds, visibleBounds.length * 2);
+        }
+        visibleBounds[i] = bounds.getMinX();
+        visibleBounds[i + 1] = bounds.getMinY();
+        visibleBounds[i + 2] = bounds.getMaxX();
+        visibleBounds[i + 3] = bounds.getMaxY();
+        visiblePolygons.add(polygon);
+    }
 
-        List<Point> vertices = polygon.getVertices();
-        Color color = Color.WHITE;
+    private boolean isInBand(ClippedRaster band, int i) {
+        return band.intersects(visibleBounds[i * 4], visibleBounds[i * 4 + 1], visibleBounds[i * 4 + 2], visibleBounds[i * 4 + 3]);
+    }
 
-        for (int i = 0; i < vertices.size() - 1; i++) {
-            Point p1 = vertices.get(i);
-            Point p2 = vertices.get(i + 1);
-            rasterizer.setColor(color);
-            rasterizer.rasterize(new Line(p1.x, p1.y, p2.x, p2.y, color.getRGB()));
+    private void renderOverlay() {
+        // the previous preview is erased and the new one drawn, the scene layer underneath stays untouched
+        overlayDamage.clear();
+        overlayDamage.add(overlayRegion);
+        overlayRegion.clear();
+        overlayRegion.add(currentPolygon);
+        if (previewPentagon != null) {
+            overlayRegion.add(previewPentagon);
+        }
+        if (isDynamicLineVisible()) {
+            overlayRegion.add(mouseX, mouseY);
+        }
+        overlayDamage.add(overlayRegion);
+        overlayDamage.clip(0, 0, overlayRaster.getWidth() - 1, overlayRaster.getHeight() - 1);
+        if (overlayDamage.isEmpty()) {
+            return;
         }
 
-        if (polygon.isClosed() && vertices.size() > 2) {
-            Point first = vertices.get(0);
-            Point last = vertices.get(vertices.size() - 1);
-            rasterizer.setColor(color);
-            rasterizer.rasterize(new Line(last.x, last.y, first.x, first.y, color.getRGB()));
+        overlayRaster.setClip(overlayDamage);
+        overlayRaster.clear();
+
+        drawPolygonOutline(overlayRasterizer, currentPolygon, Color.WHITE.getRGB());
+
+        if (previewPentagon != null) {
+            drawPolygonOutline(overlayRasterizer, previewPentagon, Color.WHITE.getRGB());
         }
 
-        if (polygon.isFilled()) {
-            Raster raster = panel.getRaster();
-            Point seed = computeSeedPoint(polygon);
-            SeedFill seedFill = new SeedFill(raster, seed.x, seed.y, FILL_COLOR, BOUNDARY_COLOR);
-            seedFill.fill();
+        if (isDynamicLineVisible()) {
+            drawDynamicLines(mouseX, mouseY);
         }
 
-        for (Polygon hole : polygon.getHoles()) {
-            drawPolygon(hole);
+        overlayRaster.resetClip();
+        repaintRegion.add(overlayDamage);
+    }
+
+    private boolean isDynamicLineVisible() {
+        return currentDrawMode == DrawMode.FREEFORM && currentPolygon.getVertexCount() > 0 && !isClippingMode;
+    }
+
+    private boolean isInClip(Polygon polygon) {
+        bounds.clear();
+        bounds.add(polygon);
+        return sceneRaster.intersects(bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY());
+    }
+
+    private RenderCache getRenderCache(Polygon polygon) {
+        RenderCache cache = polygon.getRenderCache();
+        if (cache == null) {
+            cache = new RenderCache();
+            LineRasterizerGraphics recorder = new LineRasterizerGraphics(cache.getRecorder());
+            drawPolygonOutline(recorder, polygon, Color.WHITE.getRGB());
+            for (Polygon hole : polygon.getHoles()) {
+                drawPolygonOutline(recorder, hole, Color.WHITE.getRGB());
+            }
+            // both fill modes fill the area between the outline and the holes, as the redraw always has
+            if (polygon.isFilled()) {
+                fillPolygonWithHoles(cache.getRecorder(), polygon);
+            }
+            polygon.setRenderCache(cache);
         }
+        return cache;
+    }
+
+    private void fillPolygonWithHoles(SpanSink sink, Polygon polygon) {
+        long start = RenderStats.begin(RenderStats.Stage.SCAN_LINE);
+        ScanLine scanLine = new ScanLine(sink, polygon, FILL_COLOR, BOUNDARY_COLOR);
+        scanLine.setIncludeHoles(true);
+        scanLine.fill();
+        RenderStats.end(RenderStats.Stage.SCAN_LINE, start);
     }
 
     private void drawDynamicLines(int mouseX, int mouseY) {
-        if (currentDrawMode != DrawMode.FREEFORM || currentPolygon.getVertices().isEmpty()) return;
+        if (currentDrawMode != DrawMode.FREEFORM || currentPolygon.getVertexCount() == 0) return;
 
-        Point last = currentPolygon.getVertices().get(currentPolygon.getVertices().size() - 1);
-        rasterizer.setColor(Color.GREEN);
-        rasterizer.rasterize(new Line(last.x, last.y, mouseX, mouseY, Color.GREEN.getRGB()));
+        int last = currentPolygon.getVertexCount() - 1;
+        overlayRasterizer.setColor(Color.GREEN);
+        overlayRasterizer.rasterize(currentPolygon.getX(last), currentPolygon.getY(last), mouseX, mouseY);
 
-        if (currentPolygon.getVertices().size() > 1) {
-            Point first = currentPolygon.getVertices().get(0);
-            rasterizer.rasterize(new Line(first.x, first.y, mouseX, mouseY, Color.GREEN.getRGB()));
+        if (currentPolygon.getVertexCount() > 1) {
+            overlayRasterizer.rasterize(currentPolygon.getX(0), currentPolygon.getY(0), mouseX, mouseY);
         }
-        rasterizer.setColor(Color.WHITE);
+        overlayRasterizer.setColor(Color.WHITE);
     }
 }
@@ -0,0 +1,118 @@
+package fill;
+
+import rasterize.RasterIntBuffer;
+
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+class ParallelSpanFill {
+
+    private static final int SPLIT_INTERVAL = 32;
+    private static final int MIN_SPLIT = 8;
+
+    private final RasterIntBuffer raster;
+    private final int targetColor;
+    private final int fillColor;
+    private final int reach;
+    private final int width, height;
+    private final AtomicLongArray claimed;
+
+    ParallelSpanFill(RasterIntBuffer raster, int targetColor, int fillColor, int reach) {
+        this.raster = raster;
+        this.targetColor = targetColor;
+        this.fillColor = fillColor;
+        this.reach = reach;
+        this.width = raster.getWidth();
+        this.height = raster.getHeight();
+        this.claimed = new AtomicLongArray((width * height + 63) >>> 6);
+    }
+
+    void run(ForkJoinPool pool, SpanStack pending) {
+        SpanTask root = new SpanTask(null);
+        pending.moveTo(root.stack, pending.size());
+        pool.invoke(root);
+    }
+
+    // a pixel belongs to whoever sets its bit first; pixels filled before the parallel phase already fail the color test
+    private boolean claim(int x, int y) {
+        if (raster.getPixel(x, y) != targetColor) {
+            return false;
+        }
+        int i = y * width + x;
+        long bit = 1L << i;
+        int word = i >>> 6;
+        while (true) {
+            long current = claimed.get(word);
+            if ((current & bit) != 0) {
+                return false;
+            }
+            if (claimed.compareAndSet(word, current, current | bit)) {
+                return true;
+            }
+        }
+    }
+
+    private void process(SpanStack stack) {
+        int y = stack.y;
+        int dy = stack.dy;
+        int parentLeft = stack.x1;
+        int parentRight = stack.x2;
+        if (y < 0 || y >= height) {
+            return;
+        }
+
+        int x = Math.max(parentLeft - reach, 0);
+        int end = Math.min(parentRight + reach, width - 1);
+        while (x <= end) {
+            if (!claim(x, y)) {
+                x++;
+                continue;
+            }
+
+            int left = x;
+            while (left > 0 && claim(left - 1, y)) {
+                left--;
+            }
+            int right = x;
+            while (right < width - 1 && claim(right + 1, y)) {
+                right++;
+            }
+            raster.fillSpan(left, right, y, fillColor);
+
+            stack.push(left, right, y + dy, dy);
+            if (left < parentLeft) {
+                stack.push(left, parentLeft - 1, y - dy, -dy);
+            }
+            if (right > parentRight) {
+                stack.push(parentRight + 1, right, y - dy, -dy);
+            }
+            x = right + 2;
+        }
+    }
+
+    private class SpanTask extends CountedCompleter<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private final SpanStack stack = new SpanStack();
+
+        SpanTask(SpanTask parent) {
+            super(parent);
+        }
+
+        @Override
+        public void compute() {
+            int processed = 0;
+            while (stack.pop()) {
+                process(stack);
+                if (++processed % SPLIT_INTERVAL == 0 && stack.size() >= MIN_SPLIT) {
+                    SpanTask task = new SpanTask(this);
+                    stack.moveTo(task.stack, stack.size() / 2);
+                    addToPendingCount(1);
+                    task.fork();
+                }
+            }
+            tryComplete();
+        }
+    }
+}
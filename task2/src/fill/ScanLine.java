@@ -1,69 +1,251 @@
 package fill;
 
-import model.Point;
 import model.Polygon;
 import rasterize.Raster;
+import rasterize.SpanSink;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.Arrays;
 
 public class ScanLine implements Filler {
 
-    private final Raster raster;
+    // the edge slots the convex walk uses for its two sides
+    private static final int LEFT = 0, RIGHT = 1;
+
+    private final SpanSink sink;
     private final Polygon polygon;
     private final int fillColor;
     private final int boundaryColor;
+    private boolean includeHoles;
+
+    private int edgeCount;
+    private int[] edgeYMax = new int[16];
+    private int[] edgeYMin = new int[16];
+    private int[] edgeTopX = new int[16];
+    private int[] edgeDx = new int[16];
+    // x on the current row as Math.round of the exact intersection, x = topX + floor((2 * (y - yMin) * dx + dy) / (2 * dy)),
+    // kept with the remainder of that division. a row down adds 2 * dx: step whole pixels and errorStep to the remainder
+    private int[] edgeX = new int[16];
+    private long[] edgeError = new long[16];
+    private int[] edgeStep = new int[16];
+    private long[] edgeErrorStep = new long[16];
+    private int[] edgeNext = new int[16];
+    private int[] buckets = new int[0];
+    private int[] active = new int[16];
 
-    public ScanLine(Raster raster, Polygon polygon, int fillColor, int boundaryColor) {
-        this.raster = raster;
+    public ScanLine(SpanSink sink, Polygon polygon, int fillColor, int boundaryColor) {
+        this.sink = sink;
         this.polygon = polygon;
         this.fillColor = fillColor;
         this.boundaryColor = boundaryColor;
     }
 
+    public void setIncludeHoles(boolean includeHoles) {
+        this.includeHoles = includeHoles;
+    }
+
     @Override
     public void fill() {
+        if (polygon.getVertexCount() == 0) {
+            return;
+        }
+        // holes lie inside the outline, so its bounding box covers every edge
+        int firstRow = Math.max(polygon.getMinY(), 0);
+        int lastRow = polygon.getMaxY() - 1;
+        if (sink instanceof Raster) {
+            lastRow = Math.min(lastRow, ((Raster) sink).getHeight() - 1);
+        }
+        if (firstRow > lastRow) {
+            return;
+        }
 
-        int minY = Integer.MAX_VALUE;
-        int maxY = Integer.MIN_VALUE;
-        for (Point p : polygon.getVertices()) {
-            if (p.y < minY) minY = p.y;
-            if (p.y > maxY) maxY = p.y;
+        if (polygon.isConvex() && (!includeHoles || polygon.getHoles().isEmpty())) {
+            fillConvex(firstRow, lastRow);
+            return;
         }
 
-        for (int y = minY; y <= maxY; y++) {
-            List<Integer> intersections = new ArrayList<>();
+        edgeCount = 0;
+        addEdges(polygon);
+        if (includeHoles) {
+            // hole edges go into the same table, the even-odd pairing below leaves them empty
+            for (Polygon hole : polygon.getHoles()) {
+                addEdges(hole);
+            }
+        }
+        if (edgeCount == 0) {
+            return;
+        }
 
-            List<Point> vertices = polygon.getVertices();
-            int n = vertices.size();
-            for (int i = 0; i < n; i++) {
-                Point p1 = vertices.get(i);
-                Point p2 = vertices.get((i + 1) % n);
+        // edge table: edges chained into buckets by the row where they become active
+        int rows = lastRow - firstRow + 1;
+        if (buckets.length < rows) {
+            buckets = new int[rows];
+        }
+        Arrays.fill(buckets, 0, rows, -1);
+        for (int i = 0; i < edgeCount; i++) {
+            if (edgeYMax[i] <= firstRow || edgeYMin[i] > lastRow) {
+                continue;
+            }
+            int row = Math.max(edgeYMin[i], firstRow) - firstRow;
+            edgeNext[i] = buckets[row];
+            buckets[row] = i;
+        }
 
-                if (p1.y == p2.y) {
-                    continue;
+        int activeCount = 0;
+        for (int y = firstRow; y <= lastRow; y++) {
+            int kept = 0;
+            for (int i = 0; i < activeCount; i++) {
+                if (edgeYMax[active[i]] > y) {
+                    active[kept++] = active[i];
                 }
+            }
+            activeCount = kept;
+
+            for (int e = buckets[y - firstRow]; e != -1; e = edgeNext[e]) {
+                startEdge(e, y);
+                active[activeCount++] = e;
+            }
 
-                if ((y >= p1.y && y < p2.y) || (y >= p2.y && y < p1.y)) {
-                    double xIntersect = p1.x + (double) (y - p1.y) * (p2.x - p1.x) / (p2.y - p1.y);
-                    intersections.add((int) Math.round(xIntersect));
+            // the active edges stay almost sorted between rows, insertion sort is close to linear
+            for (int i = 1; i < activeCount; i++) {
+                int e = active[i];
+                int x = edgeX[e];
+                int j = i - 1;
+                while (j >= 0 && edgeX[active[j]] > x) {
+                    active[j + 1] = active[j];
+                    j--;
                 }
+                active[j + 1] = e;
+            }
+
+            for (int i = 0; i + 1 < activeCount; i += 2) {
+                sink.fillSpanMasked(edgeX[active[i]], edgeX[active[i + 1]], y, fillColor, boundaryColor);
+            }
+
+            for (int i = 0; i < activeCount; i++) {
+                stepEdge(active[i]);
+            }
+        }
+    }
+
+    // a convex outline crosses every row exactly twice: walk the two chains down from the top vertex,
+    // one edge each in slots LEFT and RIGHT, stepped as the edge table steps so the spans come out identical
+    private void fillConvex(int firstRow, int lastRow) {
+        int n = polygon.getVertexCount();
+        int top = 0;
+        for (int i = 1; i < n; i++) {
+            if (polygon.getY(i) < polygon.getY(top)) {
+                top = i;
             }
+        }
 
-            Collections.sort(intersections);
-
-            for (int i = 0; i < intersections.size(); i += 2) {
-                if (i + 1 < intersections.size()) {
-                    int startX = intersections.get(i);
-                    int endX = intersections.get(i + 1);
-                    for (int x = startX; x <= endX; x++) {
-                        if (raster.getPixel(x, y) != boundaryColor) {
-                            raster.setPixel(x, y, fillColor);
-                        }
-                    }
+        ensureEdgeCapacity(2);
+        int leftTo = top, rightTo = top;
+        edgeYMax[LEFT] = polygon.getY(top);
+        edgeYMax[RIGHT] = edgeYMax[LEFT];
+        int leftSteps = 0, rightSteps = 0;
+
+        for (int y = firstRow; y <= lastRow; y++) {
+            while (edgeYMax[LEFT] <= y) {
+                if (++leftSteps > n) {
+                    return;
+                }
+                int from = leftTo;
+                leftTo = from + 1 < n ? from + 1 : 0;
+                if (polygon.getY(leftTo) > polygon.getY(from)) {
+                    setEdge(LEFT, from, leftTo);
+                    startEdge(LEFT, y);
+                } else {
+                    edgeYMax[LEFT] = polygon.getY(leftTo);
                 }
             }
+            while (edgeYMax[RIGHT] <= y) {
+                if (++rightSteps > n) {
+                    return;
+                }
+                int from = rightTo;
+                rightTo = from > 0 ? from - 1 : n - 1;
+                if (polygon.getY(rightTo) > polygon.getY(from)) {
+                    setEdge(RIGHT, from, rightTo);
+                    startEdge(RIGHT, y);
+                } else {
+                    edgeYMax[RIGHT] = polygon.getY(rightTo);
+                }
+            }
+
+            sink.fillSpanMasked(edgeX[LEFT], edgeX[RIGHT], y, fillColor, boundaryColor);
+            stepEdge(LEFT);
+            stepEdge(RIGHT);
+        }
+    }
+
+    // edge e running down from vertex from to vertex to
+    private void setEdge(int e, int from, int to) {
+        setEdge(e, polygon.getX(from), polygon.getY(from), polygon.getX(to), polygon.getY(to));
+    }
+
+    private void setEdge(int e, int topX, int topY, int bottomX, int bottomY) {
+        long dy = bottomY - topY;
+        edgeYMin[e] = topY;
+        edgeYMax[e] = bottomY;
+        edgeTopX[e] = topX;
+        edgeDx[e] = bottomX - topX;
+        edgeStep[e] = (int) Math.floorDiv(edgeDx[e], dy);
+        edgeErrorStep[e] = 2 * Math.floorMod(edgeDx[e], dy);
+    }
+
+    // puts edge e on row y, at or below its top
+    private void startEdge(int e, int y) {
+        long dy = edgeYMax[e] - edgeYMin[e];
+        long numerator = 2 * (long) (y - edgeYMin[e]) * edgeDx[e] + dy;
+        edgeX[e] = edgeTopX[e] + (int) Math.floorDiv(numerator, 2 * dy);
+        edgeError[e] = Math.floorMod(numerator, 2 * dy);
+    }
+
+    private void stepEdge(int e) {
+        edgeX[e] += edgeStep[e];
+        edgeError[e] += edgeErrorStep[e];
+        long divisor = 2L * (edgeYMax[e] - edgeYMin[e]);
+        if (edgeError[e] >= divisor) {
+            edgeError[e] -= divisor;
+            edgeX[e]++;
+        }
+    }
+
+    private void addEdges(Polygon polygon) {
+        int n = polygon.getVertexCount();
+        ensureEdgeCapacity(edgeCount + n);
+        for (int i = 0; i < n; i++) {
+            int j = i + 1 < n ? i + 1 : 0;
+            int x1 = polygon.getX(i), y1 = polygon.getY(i);
+            int x2 = polygon.getX(j), y2 = polygon.getY(j);
+
+            if (y1 == y2) {
+                continue;
+            }
+
+            if (y1 < y2) {
+                setEdge(edgeCount, x1, y1, x2, y2);
+            } else {
+                setEdge(edgeCount, x2, y2, x1, y1);
+            }
+            edgeCount++;
+        }
+    }
+
+    private void ensureEdgeCapacity(int capacity) {
+        if (edgeYMax.length >= capacity) {
+            return;
         }
+        int size = Math.max(capacity, edgeYMax.length * 2);
+        edgeYMax = Arrays.copyOf(edgeYMax, size);
+        edgeYMin = Arrays.copyOf(edgeYMin, size);
+        edgeTopX = Arrays.copyOf(edgeTopX, size);
+        edgeDx = Arrays.copyOf(edgeDx, size);
+        edgeX = Arrays.copyOf(edgeX, size);
+        edgeError = Arrays.copyOf(edgeError, size);
+        edgeStep = Arrays.copyOf(edgeStep, size);
+        edgeErrorStep = Arrays.copyOf(edgeErrorStep, size);
+        edgeNext = Arrays.copyOf(edgeNext, size);
+        active = Arrays.copyOf(active, size);
     }
 }
@@ -1,17 +1,21 @@
 package fill;
 
 import rasterize.Raster;
+import rasterize.RasterIntBuffer;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.concurrent.ForkJoinPool;
 
 public class SeedFill implements Filler {
 
+    private static final int SERIAL_SPAN_LIMIT = 2048;
+
     private final Raster raster;
     private final int startX;
     private final int startY;
     private final int fillColor;
     private final int boundaryColor;
+    private int connectivity = 4;
+    private ForkJoinPool pool;
 
     public SeedFill(Raster raster, int startX, int startY, int fillColor, int boundaryColor) {
         this.raster = raster;
@@ -21,6 +25,20 @@ public class SeedFill implements Filler {
         this.boundaryColor = boundaryColor;
     }
 
+    public void setConnectivity(int connectivity) {
+        if (connectivity != 4 && connectivity != 8) {
+            throw new IllegalArgumentException("Connectivity must be 4 or 8.");
+        }
+        this.connectivity = connectivity;
+    }
+
+    // large regions go on in parallel on the pool. only a RasterIntBuffer takes that: its spans are plain writes
+    // to disjoint parts of one array, while other rasters share a scratch row or counters between writes,
+    // so on them the fill stays serial
+    public void setParallel(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
     @Override
     public void fill() {
         int width = raster.getWidth();
@@ -30,44 +48,73 @@ public class SeedFill implements Filler {
         }
 
         int targetColor = raster.getPixel(startX, startY);
-        if (targetColor == fillColor || targetColor == boundaryColor) {
+        if (sameColor(targetColor, fillColor) || sameColor(targetColor, boundaryColor)) {
             return;
         }
 
-        Queue<Point> queue = new LinkedList<>();
-        queue.add(new Point(startX, startY));
+        int reach = connectivity == 8 ? 1 : 0;
+        SpanStack stack = new SpanStack();
 
-        while (!queue.isEmpty()) {
-            Point p = queue.remove();
-            int x = p.x;
-            int y = p.y;
+        int left = startX;
+        while (left > 0 && raster.getPixel(left - 1, startY) == targetColor) {
+            left--;
+        }
+        int right = startX;
+        while (right < width - 1 && raster.getPixel(right + 1, startY) == targetColor) {
+            right++;
+        }
+        raster.fillSpan(left, right, startY, fillColor);
+        stack.push(left, right, startY + 1, 1);
+        stack.push(left, right, startY - 1, -1);
 
-            if (x < 0 || x >= width || y < 0 || y >= height) {
+        // each entry is a row to scan plus the already filled span of its parent row
+        int spans = 0;
+        while (stack.pop()) {
+            int y = stack.y;
+            int dy = stack.dy;
+            int parentLeft = stack.x1;
+            int parentRight = stack.x2;
+            if (y < 0 || y >= height) {
                 continue;
             }
 
-            int currentColor = raster.getPixel(x, y);
-            if (currentColor == targetColor) {
-                raster.setPixel(x, y, fillColor);
-
-                queue.add(new Point(x + 1, y));
-                queue.add(new Point(x - 1, y));
-                queue.add(new Point(x, y + 1));
-                queue.add(new Point(x, y - 1));
-                // queue.add(new Point(x + 1, y + 1));
-                // queue.add(new Point(x - 1, y - 1));
-                // queue.add(new Point(x + 1, y - 1));
-                // queue.add(new Point(x - 1, y + 1));
+            int x = Math.max(parentLeft - reach, 0);
+            int end = Math.min(parentRight + reach, width - 1);
+            while (x <= end) {
+                if (raster.getPixel(x, y) != targetColor) {
+                    x++;
+                    continue;
+                }
+
+                left = x;
+                while (left > 0 && raster.getPixel(left - 1, y) == targetColor) {
+                    left--;
+                }
+                right = x;
+                while (right < width - 1 && raster.getPixel(right + 1, y) == targetColor) {
+                    right++;
+                }
+                raster.fillSpan(left, right, y, fillColor);
+
+                stack.push(left, right, y + dy, dy);
+                if (left < parentLeft) {
+                    stack.push(left, parentLeft - 1, y - dy, -dy);
+                }
+                if (right > parentRight) {
+                    stack.push(parentRight + 1, right, y - dy, -dy);
+                }
+                x = right + 2;
+            }
+
+            // small regions finish here, large ones hand the pending spans over to the pool
+            if (pool != null && raster instanceof RasterIntBuffer && ++spans == SERIAL_SPAN_LIMIT && !stack.isEmpty()) {
+                new ParallelSpanFill((RasterIntBuffer) raster, targetColor, fillColor, reach).run(pool, stack);
+                return;
             }
         }
     }
 
-    private static class Point {
-        int x, y;
-
-        Point(int x, int y) {
-            this.x = x;
-            this.y = y;
-        }
+    private static boolean sameColor(int a, int b) {
+        return (a & 0xFFFFFF) == (b & 0xFFFFFF);
     }
 }
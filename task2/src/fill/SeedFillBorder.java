@@ -1,9 +1,125 @@
 package fill;
 
+import rasterize.Raster;
+
 public class SeedFillBorder implements Filler {
 
+    private final Raster raster;
+    private final int startX;
+    private final int startY;
+    private final int fillColor;
+    private final int[] boundaryColors;
+    private int connectivity = 4;
+
+    private long[] visited;
+    private int width;
+
+    public SeedFillBorder(Raster raster, int startX, int startY, int fillColor, int... boundaryColors) {
+        this.raster = raster;
+        this.startX = startX;
+        this.startY = startY;
+        this.fillColor = fillColor;
+        this.boundaryColors = new int[boundaryColors.length];
+        for (int i = 0; i < boundaryColors.length; i++) {
+            this.boundaryColors[i] = boundaryColors[i] & 0xFFFFFF;
+        }
+    }
+
+    public void setConnectivity(int connectivity) {
+        if (connectivity != 4 && connectivity != 8) {
+            throw new IllegalArgumentException("Connectivity must be 4 or 8.");
+        }
+        this.connectivity = connectivity;
+    }
+
     @Override
     public void fill() {
+        width = raster.getWidth();
+        int height = raster.getHeight();
+        if (startX < 0 || startX >= width || startY < 0 || startY >= height) {
+            return;
+        }
+        if (isBoundary(startX, startY)) {
+            return;
+        }
+
+        visited = new long[(width * height + 63) >>> 6];
+        int reach = connectivity == 8 ? 1 : 0;
+        SpanStack stack = new SpanStack();
+
+        int left = startX;
+        while (left > 0 && isInside(left - 1, startY)) {
+            left--;
+        }
+        int right = startX;
+        while (right < width - 1 && isInside(right + 1, startY)) {
+            right++;
+        }
+        fillSpan(left, right, startY);
+        stack.push(left, right, startY + 1, 1);
+        stack.push(left, right, startY - 1, -1);
+
+        while (stack.pop()) {
+            int y = stack.y;
+            int dy = stack.dy;
+            int parentLeft = stack.x1;
+            int parentRight = stack.x2;
+            if (y < 0 || y >= height) {
+                continue;
+            }
+
+            int x = Math.max(parentLeft - reach, 0);
+            int end = Math.min(parentRight + reach, width - 1);
+            while (x <= end) {
+                if (!isInside(x, y)) {
+                    x++;
+                    continue;
+                }
+
+                left = x;
+                while (left > 0 && isInside(left - 1, y)) {
+                    left--;
+                }
+                right = x;
+                while (right < width - 1 && isInside(right + 1, y)) {
+                    right++;
+                }
+                fillSpan(left, right, y);
+
+                stack.push(left, right, y + dy, dy);
+                if (left < parentLeft) {
+                    stack.push(left, parentLeft - 1, y - dy, -dy);
+                }
+                if (right > parentRight) {
+                    stack.push(parentRight + 1, right, y - dy, -dy);
+                }
+                x = right + 2;
+            }
+        }
+        visited = null;
+    }
+
+    private boolean isInside(int x, int y) {
+        int i = y * width + x;
+        return (visited[i >>> 6] & (1L << i)) == 0 && !isBoundary(x, y);
+    }
+
+    private boolean isBoundary(int x, int y) {
+        int color = raster.getPixel(x, y) & 0xFFFFFF;
+        for (int boundary : boundaryColors) {
+            if (color == boundary) {
+                return true;
+            }
+        }
+        return false;
+    }
 
+    private void fillSpan(int left, int right, int y) {
+        int from = y * width + left;
+        int to = y * width + right;
+        for (int i = from; i <= to; i++) {
+            visited[i >>> 6] |= 1L << i;
+        }
+        raster.fillSpan(left, right, y, fillColor);
     }
 }
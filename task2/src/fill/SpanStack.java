@@ -0,0 +1,56 @@
+package fill;
+
+import java.util.Arrays;
+
+class SpanStack {
+
+    private int[] data;
+    private int size;
+
+    int x1, x2, y, dy;
+
+    SpanStack() {
+        data = new int[256];
+    }
+
+    void push(int x1, int x2, int y, int dy) {
+        if (size + 4 > data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        data[size++] = x1;
+        data[size++] = x2;
+        data[size++] = y;
+        data[size++] = dy;
+    }
+
+    boolean pop() {
+        if (size == 0) {
+            return false;
+        }
+        dy = data[--size];
+        y = data[--size];
+        x2 = data[--size];
+        x1 = data[--size];
+        return true;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size / 4;
+    }
+
+    void moveTo(SpanStack other, int count) {
+        int length = Math.min(count, size()) * 4;
+        for (int i = size - length; i < size; i += 4) {
+            other.push(data[i], data[i + 1], data[i + 2], data[i + 3]);
+        }
+        size -= length;
+    }
+
+    void clear() {
+        size = 0;
+    }
+}
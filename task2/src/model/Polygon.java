@@ -1,36 +1,108 @@
 package model;
 
 import control.FillMode;
+import rasterize.RenderCache;
+
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 public class Polygon {
-    private List<Point> vertices;
+    // vertices packed as x0, y0, x1, y1, ... instead of one Point object per vertex
+    private int[] coords;
+    private int vertexCount;
+    private final List<Point> vertexView;
     private boolean closed;
     private boolean selected;
     private boolean filled;
     private FillMode fillMode;
 
-    private List<Polygon> holes;
+    private final List<Polygon> holes;
+    private final List<Polygon> holeView;
     private boolean isHole;
 
+    private RenderCache renderCache;
+
+    // outline summaries, recomputed on first use after the vertices change. the flag is set last and is
+    // volatile, so a reader on another thread, e.g. building render caches on the pool, sees them complete
+    private volatile boolean summaryValid;
+    private int minX, minY, maxX, maxY;
+    private double signedArea;
+    private double centroidX, centroidY;
+    private boolean convex;
+    // set by shapes that are convex by construction, dropped again when the vertices change
+    private boolean declaredConvex;
 
     public Polygon() {
-        this.vertices = new ArrayList<>();
+        this.coords = new int[16];
+        this.vertexView = new VertexView();
         this.closed = false;
         this.selected = false;
         this.filled = false;
         this.fillMode = FillMode.SEED_FILL;
         this.holes = new ArrayList<>();
+        this.holeView = Collections.unmodifiableList(holes);
         this.isHole = false;
     }
 
     public void addVertex(Point p) {
-        vertices.add(p);
+        addVertex(p.x, p.y);
+    }
+
+    public void addVertex(int x, int y) {
+        ensureCapacity(vertexCount + 1);
+        coords[2 * vertexCount] = x;
+        coords[2 * vertexCount + 1] = y;
+        vertexCount++;
+        summaryValid = false;
+        declaredConvex = false;
+        invalidate();
+    }
+
+    public void addVertices(Collection<Point> points) {
+        ensureCapacity(vertexCount + points.size());
+        for (Point p : points) {
+            coords[2 * vertexCount] = p.x;
+            coords[2 * vertexCount + 1] = p.y;
+            vertexCount++;
+        }
+        summaryValid = false;
+        declaredConvex = false;
+        invalidate();
+    }
+
+    public void addVertices(Polygon polygon) {
+        ensureCapacity(vertexCount + polygon.vertexCount);
+        System.arraycopy(polygon.coords, 0, coords, 2 * vertexCount, 2 * polygon.vertexCount);
+        vertexCount += polygon.vertexCount;
+        summaryValid = false;
+        declaredConvex = false;
+        invalidate();
+    }
+
+    private void ensureCapacity(int count) {
+        if (2 * count > coords.length) {
+            coords = Arrays.copyOf(coords, Math.max(2 * count, 2 * coords.length));
+        }
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public int getX(int index) {
+        return coords[2 * index];
+    }
+
+    public int getY(int index) {
+        return coords[2 * index + 1];
     }
 
     public void clear() {
-        vertices.clear();
+        clearVertices();
         closed = false;
         selected = false;
         filled = false;
@@ -39,12 +111,24 @@ public class Polygon {
         isHole = false;
     }
 
+    protected void clearVertices() {
+        vertexCount = 0;
+        summaryValid = false;
+        declaredConvex = false;
+        invalidate();
+    }
+
+    protected void declareConvex() {
+        declaredConvex = true;
+    }
+
+    // read-only copies of the packed vertices, loops over the outline should use getX/getY instead
     public List<Point> getVertices() {
-        return vertices;
+        return vertexView;
     }
 
     public List<Polygon> getHoles() {
-        return holes;
+        return holeView;
     }
 
     public void addHole(Polygon hole) {
@@ -55,21 +139,173 @@ public class Polygon {
             hole.setHole(true);
         }
 
-        if (!isPointInsidePolygon(hole.getVertices().get(0))) {
+        if (!isPointInsidePolygon(hole.getX(0), hole.getY(0))) {
             throw new IllegalArgumentException("Hole must be inside the polygon.");
         }
         holes.add(hole);
+        invalidate();
+    }
+
+    public void addHoles(List<Polygon> holes) {
+        // holes taken over from another polygon, they were checked when first added there
+        this.holes.addAll(holes);
+        invalidate();
+    }
+
+    public RenderCache getRenderCache() {
+        return renderCache;
+    }
+
+    public void setRenderCache(RenderCache renderCache) {
+        this.renderCache = renderCache;
+    }
+
+    private void invalidate() {
+        renderCache = null;
+    }
+
+    public int getMinX() {
+        summarize();
+        return minX;
+    }
+
+    public int getMinY() {
+        summarize();
+        return minY;
+    }
+
+    public int getMaxX() {
+        summarize();
+        return maxX;
+    }
+
+    public int getMaxY() {
+        summarize();
+        return maxY;
+    }
+
+    // positive when the vertices go clockwise on screen (y grows downwards)
+    public double getSignedArea() {
+        summarize();
+        return signedArea;
+    }
+
+    public double getCentroidX() {
+        summarize();
+        return centroidX;
+    }
+
+    public double getCentroidY() {
+        summarize();
+        return centroidY;
+    }
+
+    public boolean isConvex() {
+        if (declaredConvex) {
+            return true;
+        }
+        summarize();
+        return convex;
+    }
+
+    private void summarize() {
+        if (summaryValid) {
+            return;
+        }
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        double area = 0, cx = 0, cy = 0;
+        int n = vertexCount;
+        int[] c = coords;
+        for (int i = 0; i < n; i++) {
+            int j = i + 1 < n ? i + 1 : 0;
+            int x0 = c[2 * i], y0 = c[2 * i + 1];
+            int x1 = c[2 * j], y1 = c[2 * j + 1];
+            minX = Math.min(minX, x0);
+            minY = Math.min(minY, y0);
+            maxX = Math.max(maxX, x0);
+            maxY = Math.max(maxY, y0);
+
+            double a = (double) x0 * y1 - (double) x1 * y0;
+            area += a;
+            cx += (x0 + x1) * a;
+            cy += (y0 + y1) * a;
+        }
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        signedArea = area * 0.5;
+        if (area != 0) {
+            centroidX = cx / (3 * area);
+            centroidY = cy / (3 * area);
+        } else {
+            // degenerate outline, fall back to the middle of the bounding box
+            centroidX = n == 0 ? 0 : (minX + maxX) * 0.5;
+            centroidY = n == 0 ? 0 : (minY + maxY) * 0.5;
+        }
+        convex = computeConvex();
+        summaryValid = true;
+    }
+
+    private boolean computeConvex() {
+        int n = vertexCount;
+        if (n < 3) {
+            return false;
+        }
+        int[] c = coords;
+        int turn = 0;
+        int xFlips = 0, yFlips = 0;
+        int lastDx = 0, lastDy = 0;
+        for (int i = 0; i < n; i++) {
+            int j = (i + 1) % n, k = (i + 2) % n;
+            int ex = c[2 * j] - c[2 * i], ey = c[2 * j + 1] - c[2 * i + 1];
+            int fx = c[2 * k] - c[2 * j], fy = c[2 * k + 1] - c[2 * j + 1];
+            long cross = (long) ex * fy - (long) ey * fx;
+            if (cross != 0) {
+                int sign = cross > 0 ? 1 : -1;
+                if (turn != 0 && sign != turn) {
+                    return false;
+                }
+                turn = sign;
+            }
+
+            // a star turns the same way at every vertex but winds around more than once,
+            // a convex outline changes its x and y direction exactly twice each
+            int dx = Integer.signum(ex);
+            int dy = Integer.signum(ey);
+            if (dx != 0) {
+                if (lastDx != 0 && dx != lastDx) xFlips++;
+                lastDx = dx;
+            }
+            if (dy != 0) {
+                if (lastDy != 0 && dy != lastDy) yFlips++;
+                lastDy = dy;
+            }
+        }
+        return turn != 0 && xFlips <= 2 && yFlips <= 2;
     }
 
     public boolean isPointInsidePolygon(Point point) {
+        return isPointInsidePolygon(point.x, point.y);
+    }
+
+    public boolean isPointInsidePolygon(int x, int y) {
+        summarize();
+        if (x < minX || x > maxX || y < minY || y > maxY) {
+            return false;
+        }
         boolean inside = false;
-        int n = vertices.size();
+        int n = vertexCount;
+        int[] c = coords;
         for (int i = 0, j = n - 1; i < n; j = i++) {
-            Point vi = vertices.get(i);
-            Point vj = vertices.get(j);
+            int xi = c[2 * i], yi = c[2 * i + 1];
+            int xj = c[2 * j], yj = c[2 * j + 1];
 
-            boolean intersect = ((vi.y > point.y) != (vj.y > point.y)) &&
-                    (point.x < (vj.x - vi.x) * (point.y - vi.y) / (double) (vj.y - vi.y) + vi.x);
+            boolean intersect = ((yi > y) != (yj > y)) &&
+                    (x < (xj - xi) * (y - yi) / (double) (yj - yi) + xi);
             if (intersect) {
                 inside = !inside;
             }
@@ -83,6 +319,7 @@ public class Polygon {
 
     public void setClosed(boolean closed) {
         this.closed = closed;
+        invalidate();
     }
 /*
     public boolean isSelected() {
@@ -99,6 +336,7 @@ public class Polygon {
 
     public void setFilled(boolean filled) {
         this.filled = filled;
+        invalidate();
     }
 
     public FillMode getFillMode() {
@@ -107,6 +345,7 @@ public class Polygon {
 
     public void setFillMode(FillMode fillMode) {
         this.fillMode = fillMode;
+        invalidate();
     }
 
     public boolean isHole() {
@@ -115,5 +354,21 @@ public class Polygon {
 
     public void setHole(boolean isHole) {
         this.isHole = isHole;
+        invalidate();
+    }
+
+    private class VertexView extends AbstractList<Point> {
+        @Override
+        public Point get(int index) {
+            if (index < 0 || index >= vertexCount) {
+                throw new IndexOutOfBoundsException("Vertex index " + index + " out of " + vertexCount);
+            }
+            return new Point(coords[2 * index], coords[2 * index + 1]);
+        }
+
+        @Override
+        public int size() {
+            return vertexCount;
+        }
     }
 }
@@ -0,0 +1,65 @@
+package model;
+
+public class RegularPolygon extends Polygon {
+    // unit circle vertex tables, cos and sin interleaved, shared by every polygon with that many sides
+    private static final int TABLE_SIDES = 64;
+    private static final double[][] UNIT_CIRCLES = new double[TABLE_SIDES + 1][];
+
+    static {
+        for (int sides = 3; sides <= TABLE_SIDES; sides++) {
+            UNIT_CIRCLES[sides] = unitCircle(sides);
+        }
+    }
+
+    private final int sides;
+    private final double[] unitCircle;
+    // how far a vertex sticks out past the line through its two neighbours, per pixel of radius
+    private final double bulge;
+    private int radius;
+
+    public RegularPolygon(Point center, int radius, int sides) {
+        if (sides < 3) {
+            throw new IllegalArgumentException("A regular polygon needs at least 3 sides, got " + sides);
+        }
+        this.sides = sides;
+        this.unitCircle = sides <= TABLE_SIDES ? UNIT_CIRCLES[sides] : unitCircle(sides);
+        this.bulge = 1 - Math.cos(2 * Math.PI / sides);
+        set(center, radius);
+        setClosed(true);
+    }
+
+    // moves and resizes the polygon in place, a preview can follow the mouse without new objects or trig calls
+    public void set(Point center, int radius) {
+        this.radius = radius;
+        clearVertices();
+        for (int i = 0; i < sides; i++) {
+            int x = center.x + (int) (radius * unitCircle[2 * i]);
+            int y = center.y - (int) (radius * unitCircle[2 * i + 1]);
+            addVertex(x, y);
+        }
+        // rounding moves every vertex by less than 1.5 px, which cannot dent the outline
+        // while each vertex sticks out more than twice that
+        if (radius * bulge > 3) {
+            declareConvex();
+        }
+    }
+
+    public int getSides() {
+        return sides;
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    private static double[] unitCircle(int sides) {
+        double[] table = new double[2 * sides];
+        for (int i = 0; i < sides; i++) {
+            // the first vertex points straight up
+            double angle = Math.toRadians(90 + i * 360.0 / sides);
+            table[2 * i] = Math.cos(angle);
+            table[2 * i + 1] = Math.sin(angle);
+        }
+        return table;
+    }
+}
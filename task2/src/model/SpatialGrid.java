@@ -0,0 +1,165 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SpatialGrid {
+
+    private static final int CELL_SHIFT = 6;
+
+    // cells in an open addressed table keyed by their packed coordinates, so a query boxes no keys.
+    // a cell stays in the table once created, the cells a scene covers are few
+    private long[] cellKeys = new long[64];
+    private List<Entry>[] cellLists = newCells(64);
+    private int cellCount;
+
+    private final Map<Polygon, Entry> entries = new IdentityHashMap<>();
+    private final List<Entry> found = new ArrayList<>();
+    // sequence and index of each hit, sorted to restore the scene order
+    private long[] order = new long[64];
+    private int nextSequence;
+    private int stamp;
+
+    public void add(Polygon polygon) {
+        remove(polygon);
+        Entry entry = new Entry(polygon, nextSequence++);
+        entries.put(polygon, entry);
+        if (polygon.getVertexCount() == 0) {
+            return;
+        }
+
+        entry.minX = polygon.getMinX();
+        entry.minY = polygon.getMinY();
+        entry.maxX = polygon.getMaxX();
+        entry.maxY = polygon.getMaxY();
+        for (int cy = entry.minY >> CELL_SHIFT; cy <= entry.maxY >> CELL_SHIFT; cy++) {
+            for (int cx = entry.minX >> CELL_SHIFT; cx <= entry.maxX >> CELL_SHIFT; cx++) {
+                long key = key(cx, cy);
+                int slot = slot(key);
+                if (cellLists[slot] == null) {
+                    cellKeys[slot] = key;
+                    cellLists[slot] = new ArrayList<>();
+                    if (++cellCount * 2 > cellKeys.length) {
+                        grow();
+                    }
+                    slot = slot(key);
+                }
+                cellLists[slot].add(entry);
+            }
+        }
+    }
+
+    public void remove(Polygon polygon) {
+        Entry entry = entries.remove(polygon);
+        if (entry == null || polygon.getVertexCount() == 0) {
+            return;
+        }
+        for (int cy = entry.minY >> CELL_SHIFT; cy <= entry.maxY >> CELL_SHIFT; cy++) {
+            for (int cx = entry.minX >> CELL_SHIFT; cx <= entry.maxX >> CELL_SHIFT; cx++) {
+                List<Entry> cell = cellLists[slot(key(cx, cy))];
+                if (cell != null) {
+                    cell.remove(entry);
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(cellLists, null);
+        cellCount = 0;
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // candidates come back in the order they were added, the same order as the scene list
+    public List<Polygon> query(int x, int y, List<Polygon> result) {
+        return query(x, y, x, y, result);
+    }
+
+    public List<Polygon> query(int x1, int y1, int x2, int y2, List<Polygon> result) {
+        stamp++;
+        found.clear();
+        for (int cy = y1 >> CELL_SHIFT; cy <= y2 >> CELL_SHIFT; cy++) {
+            for (int cx = x1 >> CELL_SHIFT; cx <= x2 >> CELL_SHIFT; cx++) {
+                List<Entry> cell = cellLists[slot(key(cx, cy))];
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.size(); i++) {
+                    Entry entry = cell.get(i);
+                    if (entry.stamp != stamp && entry.minX <= x2 && entry.maxX >= x1 && entry.minY <= y2 && entry.maxY >= y1) {
+                        entry.stamp = stamp;
+                        found.add(entry);
+                    }
+                }
+            }
+        }
+
+        int count = found.size();
+        if (order.length < count) {
+            order = new long[Math.max(count, order.length * 2)];
+        }
+        for (int i = 0; i < count; i++) {
+            order[i] = ((long) found.get(i).sequence << 32) | i;
+        }
+        Arrays.sort(order, 0, count);
+        for (int i = 0; i < count; i++) {
+            result.add(found.get((int) order[i]).polygon);
+        }
+        return result;
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    // the slot holding key, or the empty slot where it belongs
+    private int slot(long key) {
+        int mask = cellKeys.length - 1;
+        long h = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (h ^ (h >>> 32)) & mask;
+        while (cellLists[slot] != null && cellKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = cellKeys;
+        List<Entry>[] oldLists = cellLists;
+        cellKeys = new long[oldKeys.length * 2];
+        cellLists = newCells(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldLists[i] != null) {
+                int slot = slot(oldKeys[i]);
+                cellKeys[slot] = oldKeys[i];
+                cellLists[slot] = oldLists[i];
+            }
+        }
+    }
+
+    private static List<Entry>[] newCells(int size) {
+        // no generic array creation in Java; the raw array only ever holds List<Entry>
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        List<Entry>[] cells = new List[size];
+        return cells;
+    }
+
+    private static class Entry {
+        final Polygon polygon;
+        final int sequence;
+        int minX, minY, maxX, maxY;
+        int stamp;
+
+        Entry(Polygon polygon, int sequence) {
+            this.polygon = polygon;
+            this.sequence = sequence;
+        }
+    }
+}
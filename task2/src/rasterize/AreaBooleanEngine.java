@@ -0,0 +1,145 @@
+package rasterize;
+
+import model.Polygon;
+
+import java.awt.geom.Area;
+import java.awt.geom.PathIterator;
+import java.util.ArrayList;
+import java.util.List;
+
+// the java.awt.geom.Area round trip the clipping used before, kept as the reference for SegmentBooleanEngine
+public class AreaBooleanEngine implements BooleanEngine {
+
+    @Override
+    public List<Polygon> apply(Polygon subject, Polygon clipper, BooleanOperation operation) {
+        Area area = toArea(subject);
+        Area other = toArea(clipper);
+        switch (operation) {
+            case DIFFERENCE:
+                area.subtract(other);
+                break;
+            case INTERSECTION:
+                area.intersect(other);
+                break;
+            case UNION:
+                area.add(other);
+                break;
+            case XOR:
+                area.exclusiveOr(other);
+                break;
+        }
+        return toPolygons(area);
+    }
+
+    public static Area toArea(Polygon polygon) {
+        Area area = new Area(toAwtPolygon(polygon));
+        for (Polygon hole : polygon.getHoles()) {
+            area.subtract(new Area(toAwtPolygon(hole)));
+        }
+        return area;
+    }
+
+    private static java.awt.Polygon toAwtPolygon(Polygon polygon) {
+        java.awt.Polygon awtPolygon = new java.awt.Polygon();
+        for (int i = 0; i < polygon.getVertexCount(); i++) {
+            awtPolygon.addPoint(polygon.getX(i), polygon.getY(i));
+        }
+        return awtPolygon;
+    }
+
+    public static List<Polygon> toPolygons(Area area) {
+        List<double[]> rings = new ArrayList<>();
+        PathIterator iterator = area.getPathIterator(null);
+        double[] coords = new double[6];
+        List<Double> points = new ArrayList<>();
+        while (!iterator.isDone()) {
+            int type = iterator.currentSegment(coords);
+            if (type == PathIterator.SEG_MOVETO || type == PathIterator.SEG_LINETO) {
+                points.add(coords[0]);
+                points.add(coords[1]);
+            } else if (type == PathIterator.SEG_CLOSE) {
+                if (points.size() >= 6) {
+                    double[] ring = new double[points.size()];
+                    for (int i = 0; i < ring.length; i++) {
+                        ring[i] = points.get(i);
+                    }
+                    rings.add(ring);
+                }
+                points.clear();
+            }
+            iterator.next();
+        }
+
+        // Area never crosses its own rings, a ring inside an odd number of others is a hole
+        List<Polygon> outers = new ArrayList<>();
+        List<double[]> outerRings = new ArrayList<>();
+        List<double[]> holeRings = new ArrayList<>();
+        for (double[] ring : rings) {
+            double x = (ring[0] + ring[2]) * 0.5;
+            double y = (ring[1] + ring[3]) * 0.5;
+            int depth = 0;
+            for (double[] other : rings) {
+                if (other != ring && contains(other, x, y)) {
+                    depth++;
+                }
+            }
+            if (depth % 2 == 0) {
+                outers.add(toPolygon(ring));
+                outerRings.add(ring);
+            } else {
+                holeRings.add(ring);
+            }
+        }
+
+        for (double[] ring : holeRings) {
+            double x = (ring[0] + ring[2]) * 0.5;
+            double y = (ring[1] + ring[3]) * 0.5;
+            int owner = -1;
+            double ownerArea = Double.MAX_VALUE;
+            for (int i = 0; i < outerRings.size(); i++) {
+                double size = Math.abs(signedArea(outerRings.get(i)));
+                if (size < ownerArea && contains(outerRings.get(i), x, y)) {
+                    owner = i;
+                    ownerArea = size;
+                }
+            }
+            if (owner >= 0) {
+                Polygon hole = toPolygon(ring);
+                hole.setHole(true);
+                outers.get(owner).addHoles(List.of(hole));
+            }
+        }
+        return outers;
+    }
+
+    private static Polygon toPolygon(double[] ring) {
+        Polygon polygon = new Polygon();
+        for (int i = 0; i < ring.length; i += 2) {
+            polygon.addVertex((int) ring[i], (int) ring[i + 1]);
+        }
+        polygon.setClosed(true);
+        return polygon;
+    }
+
+    private static double signedArea(double[] ring) {
+        double area = 0;
+        int n = ring.length / 2;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            area += ring[2 * j] * ring[2 * i + 1] - ring[2 * i] * ring[2 * j + 1];
+        }
+        return area * 0.5;
+    }
+
+    private static boolean contains(double[] ring, double x, double y) {
+        boolean inside = false;
+        int n = ring.length / 2;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            double xi = ring[2 * i], yi = ring[2 * i + 1];
+            double xj = ring[2 * j], yj = ring[2 * j + 1];
+            if ((yi > y) != (yj > y) && x < (xj - xi) * (y - yi) / (yj - yi) + xi) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+}
@@ -0,0 +1,12 @@
+package rasterize;
+
+import model.Polygon;
+
+import java.util.List;
+
+public interface BooleanEngine {
+
+    // both operands are read with their holes, the result polygons carry their own holes
+    List<Polygon> apply(Polygon subject, Polygon clipper, BooleanOperation operation);
+
+}
@@ -0,0 +1,36 @@
+package rasterize;
+
+public enum BooleanOperation {
+    DIFFERENCE,
+    INTERSECTION,
+    UNION,
+    XOR;
+
+    public boolean contains(boolean inSubject, boolean inClipper) {
+        switch (this) {
+            case DIFFERENCE:
+                return inSubject && !inClipper;
+            case INTERSECTION:
+                return inSubject && inClipper;
+            case UNION:
+                return inSubject || inClipper;
+            default:
+                return inSubject != inClipper;
+        }
+    }
+
+    // the same operations over any number of operands: the first one is the subject, first and rest
+    // count how many of the first and of the remaining operands cover a point
+    public boolean contains(int first, int rest, int operands) {
+        switch (this) {
+            case DIFFERENCE:
+                return first > 0 && rest <= 0;
+            case INTERSECTION:
+                return first > 0 && first + rest >= operands;
+            case UNION:
+                return first + rest > 0;
+            default:
+                return ((first + rest) & 1) != 0;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package rasterize;
+
+public class ClippedRaster implements Raster {
+
+    private Raster raster;
+    private int clipX1, clipY1, clipX2, clipY2;
+    // drawn through this raster since the last flushCounts(), plain fields as one thread draws a raster at a time
+    private long spans, pixels;
+
+    public ClippedRaster(Raster raster) {
+        this.raster = raster;
+        resetClip();
+    }
+
+    public void setClip(int x1, int y1, int x2, int y2) {
+        clipX1 = Math.max(x1, 0);
+        clipY1 = Math.max(y1, 0);
+        clipX2 = Math.min(x2, raster.getWidth() - 1);
+        clipY2 = Math.min(y2, raster.getHeight() - 1);
+    }
+
+    public void setClip(DirtyRegion region) {
+        setClip(region.getMinX(), region.getMinY(), region.getMaxX(), region.getMaxY());
+    }
+
+    public void resetClip() {
+        setClip(0, 0, raster.getWidth() - 1, raster.getHeight() - 1);
+    }
+
+    public Raster getTarget() {
+        return raster;
+    }
+
+    // points the clip at another raster of the same kind, e.g. the next back buffer, and resets the clip
+    public void setTarget(Raster raster) {
+        this.raster = raster;
+        resetClip();
+    }
+
+    public int getClipX1() {
+        return clipX1;
+    }
+
+    public int getClipY1() {
+        return clipY1;
+    }
+
+    public int getClipX2() {
+        return clipX2;
+    }
+
+    public int getClipY2() {
+        return clipY2;
+    }
+
+    // for writers going around the raster straight to its buffer
+    public void count(long spanCount, long pixelCount) {
+        spans += spanCount;
+        pixels += pixelCount;
+    }
+
+    public void flushCounts() {
+        RenderStats.addSpans(spans, pixels);
+        spans = 0;
+        pixels = 0;
+    }
+
+    public boolean intersects(int x1, int y1, int x2, int y2) {
+        return x1 <= clipX2 && x2 >= clipX1 && y1 <= clipY2 && y2 >= clipY1;
+    }
+
+    @Override
+    public void clear() {
+        for (int y = clipY1; y <= clipY2; y++) {
+            raster.clearSpan(clipX1, clipX2, y);
+        }
+        if (clipX1 <= clipX2 && clipY1 <= clipY2) {
+            count(clipY2 - clipY1 + 1, (long) (clipX2 - clipX1 + 1) * (clipY2 - clipY1 + 1));
+        }
+    }
+
+    @Override
+    public void setClearColor(int color) {
+        raster.setClearColor(color);
+    }
+
+    @Override
+    public int getWidth() {
+        return raster.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return raster.getHeight();
+    }
+
+    @Override
+    public int getPixel(int x, int y) {
+        return raster.getPixel(x, y);
+    }
+
+    @Override
+    public void setPixel(int x, int y, int color) {
+        if (x >= clipX1 && x <= clipX2 && y >= clipY1 && y <= clipY2) {
+            raster.setPixel(x, y, color);
+            spans++;
+            pixels++;
+        }
+    }
+
+    @Override
+    public void fillSpan(int x1, int x2, int y, int color) {
+        if (y < clipY1 || y > clipY2) return;
+        int from = Math.max(Math.min(x1, x2), clipX1);
+        int to = Math.min(Math.max(x1, x2), clipX2);
+        if (from <= to) {
+            raster.fillSpan(from, to, y, color);
+            spans++;
+            pixels += to - from + 1;
+        }
+    }
+
+    @Override
+    public void fillSpanMasked(int x1, int x2, int y, int color, int maskColor) {
+        if (y < clipY1 || y > clipY2) return;
+        int from = Math.max(Math.min(x1, x2), clipX1);
+        int to = Math.min(Math.max(x1, x2), clipX2);
+        if (from <= to) {
+            raster.fillSpanMasked(from, to, y, color, maskColor);
+            spans++;
+            pixels += to - from + 1;
+        }
+    }
+
+    @Override
+    public void copySpan(int srcX, int srcY, int dstX, int dstY, int length) {
+        if (dstY < clipY1 || dstY > clipY2) return;
+        int skip = Math.max(clipX1 - dstX, 0);
+        int count = Math.min(length, clipX2 - dstX + 1) - skip;
+        if (count > 0) {
+            raster.copySpan(srcX + skip, srcY, dstX + skip, dstY, count);
+        }
+    }
+
+    @Override
+    public void getRow(int x, int y, int[] dst, int offset, int length) {
+        raster.getRow(x, y, dst, offset, length);
+    }
+
+    @Override
+    public void clearSpan(int x1, int x2, int y) {
+        if (y < clipY1 || y > clipY2) return;
+        int from = Math.max(Math.min(x1, x2), clipX1);
+        int to = Math.min(Math.max(x1, x2), clipX2);
+        if (from <= to) {
+            raster.clearSpan(from, to, y);
+            spans++;
+            pixels += to - from + 1;
+        }
+    }
+}
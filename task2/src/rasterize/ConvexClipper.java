@@ -0,0 +1,89 @@
+package rasterize;
+
+import model.Polygon;
+
+import java.util.Arrays;
+
+// Sutherland-Hodgman: the subject is cut by the line of every clipper edge in turn, which is all
+// an intersection with a convex clipper needs. O(n) per clipper edge, no sorting and no ray casts
+public class ConvexClipper {
+
+    private double[] input = new double[32];
+    private double[] output = new double[32];
+
+    // the common part of a convex subject and a convex clipper, both without holes, or null when they do not overlap
+    public Polygon intersect(Polygon subject, Polygon clipper) {
+        double orientation = Math.signum(clipper.getSignedArea());
+        int n = subject.getVertexCount();
+        if (orientation == 0 || n < 3) {
+            return null;
+        }
+
+        ensureCapacity(n);
+        for (int i = 0; i < n; i++) {
+            input[2 * i] = subject.getX(i);
+            input[2 * i + 1] = subject.getY(i);
+        }
+        int count = n;
+
+        int m = clipper.getVertexCount();
+        for (int e = 0; e < m && count > 0; e++) {
+            int f = e + 1 < m ? e + 1 : 0;
+            double ax = clipper.getX(e), ay = clipper.getY(e);
+            double ex = clipper.getX(f) - ax, ey = clipper.getY(f) - ay;
+            if (ex == 0 && ey == 0) {
+                continue;
+            }
+
+            // a convex polygon gains at most one vertex per cut
+            ensureCapacity(count + 1);
+            int kept = 0;
+            double px = input[2 * count - 2], py = input[2 * count - 1];
+            double pSide = orientation * (ex * (py - ay) - ey * (px - ax));
+            for (int i = 0; i < count; i++) {
+                double qx = input[2 * i], qy = input[2 * i + 1];
+                double qSide = orientation * (ex * (qy - ay) - ey * (qx - ax));
+                if ((pSide < 0) != (qSide < 0)) {
+                    double t = pSide / (pSide - qSide);
+                    output[2 * kept] = px + (qx - px) * t;
+                    output[2 * kept + 1] = py + (qy - py) * t;
+                    kept++;
+                }
+                if (qSide >= 0) {
+                    output[2 * kept] = qx;
+                    output[2 * kept + 1] = qy;
+                    kept++;
+                }
+                px = qx;
+                py = qy;
+                pSide = qSide;
+            }
+
+            double[] swap = input;
+            input = output;
+            output = swap;
+            count = kept;
+        }
+        if (count < 3) {
+            return null;
+        }
+
+        // the cut keeps the subject's winding, results wind positive like the other engines' outlines
+        double[] coords = new double[2 * count];
+        boolean reverse = subject.getSignedArea() < 0;
+        for (int i = 0; i < count; i++) {
+            int k = reverse ? count - 1 - i : i;
+            coords[2 * i] = input[2 * k];
+            coords[2 * i + 1] = input[2 * k + 1];
+        }
+        return SegmentArrangement.toPolygon(coords);
+    }
+
+    private void ensureCapacity(int count) {
+        if (input.length < 2 * count) {
+            int size = Math.max(2 * count, input.length * 2);
+            input = Arrays.copyOf(input, size);
+            output = Arrays.copyOf(output, size);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package rasterize;
+
+import model.Polygon;
+
+public class DirtyRegion {
+
+    private int minX, minY, maxX, maxY;
+
+    public DirtyRegion() {
+        clear();
+    }
+
+    public void add(int x, int y) {
+        add(x, y, x, y);
+    }
+
+    public void add(int x1, int y1, int x2, int y2) {
+        minX = Math.min(minX, Math.min(x1, x2));
+        minY = Math.min(minY, Math.min(y1, y2));
+        maxX = Math.max(maxX, Math.max(x1, x2));
+        maxY = Math.max(maxY, Math.max(y1, y2));
+    }
+
+    public void add(DirtyRegion region) {
+        if (!region.isEmpty()) {
+            add(region.minX, region.minY, region.maxX, region.maxY);
+        }
+    }
+
+    public void add(Polygon polygon) {
+        if (polygon.getVertexCount() > 0) {
+            add(polygon.getMinX(), polygon.getMinY(), polygon.getMaxX(), polygon.getMaxY());
+        }
+    }
+
+    public void clip(int x1, int y1, int x2, int y2) {
+        minX = Math.max(minX, x1);
+        minY = Math.max(minY, y1);
+        maxX = Math.min(maxX, x2);
+        maxY = Math.min(maxY, y2);
+    }
+
+    public void clear() {
+        minX = Integer.MAX_VALUE;
+        minY = Integer.MAX_VALUE;
+        maxX = Integer.MIN_VALUE;
+        maxY = Integer.MIN_VALUE;
+    }
+
+    public boolean isEmpty() {
+        return minX > maxX || minY > maxY;
+    }
+
+    public int getMinX() {
+        return minX;
+    }
+
+    public int getMinY() {
+        return minY;
+    }
+
+    public int getMaxX() {
+        return maxX;
+    }
+
+    public int getMaxY() {
+        return maxY;
+    }
+}
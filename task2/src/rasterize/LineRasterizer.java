@@ -4,7 +4,7 @@ import java.awt.*;
 
 public abstract class LineRasterizer {
     protected Raster raster;
-    protected Color color = Color.WHITE;
+    protected int color = Color.WHITE.getRGB();
 
     public LineRasterizer(Raster raster) {
         this.raster = raster;
@@ -15,7 +15,7 @@ public abstract class LineRasterizer {
     }
 */
     public void setColor(int color) {
-        this.color = new Color(color);
+        this.color = color;
     }
 /*
     public void rasterize(Line line) {
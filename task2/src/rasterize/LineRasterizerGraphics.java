@@ -1,16 +1,34 @@
 package rasterize;
 
 import model.Line;
+import model.Polygon;
 
 import java.awt.Color;
 
 public class LineRasterizerGraphics {
 
-    private Raster raster;
-    private Color currentColor = Color.WHITE;
+    private static final int ALPHA = 0xFF000000;
+
+    private final Raster raster;
+    private final SpanSink sink;
+    private int color = Color.WHITE.getRGB();
+
+    // window the lines are clipped to, and the int buffer behind the raster when there is one
+    private int clipX1, clipY1, clipX2, clipY2;
+    private int[] pixels;
+    private int stride;
+    // the raster bypassed by direct writes, told what was drawn behind its back
+    private ClippedRaster counter;
 
     public LineRasterizerGraphics(Raster raster) {
         this.raster = raster;
+        this.sink = raster;
+    }
+
+    // draws into something that only takes spans, e.g. a RenderCache recorder, with nothing to clip to
+    public LineRasterizerGraphics(SpanSink sink) {
+        this.raster = null;
+        this.sink = sink;
     }
 
     public void rasterize(Line line) {
@@ -20,37 +38,178 @@ public class LineRasterizerGraphics {
         int x1 = line.getX2();
         int y1 = line.getY2();
 
-        drawLine(x0, y0, x1, y1, currentColor.getRGB());
+        rasterize(x0, y0, x1, y1);
+    }
+
+    public void rasterize(int x0, int y0, int x1, int y1) {
+        bind();
+        drawLine(x0, y0, x1, y1, color);
+    }
+
+    // count vertices packed as x0, y0, x1, y1, ..., joined back to the first one when closed
+    public void drawPolyline(int[] xy, int count, boolean closed) {
+        bind();
+        for (int i = 0; i + 1 < count; i++) {
+            drawLine(xy[2 * i], xy[2 * i + 1], xy[2 * i + 2], xy[2 * i + 3], color);
+        }
+        if (closed && count > 2) {
+            drawLine(xy[2 * count - 2], xy[2 * count - 1], xy[0], xy[1], color);
+        }
+    }
+
+    // the outline of a polygon read straight from its vertices, closed when the polygon is
+    public void drawOutline(Polygon polygon) {
+        bind();
+        int n = polygon.getVertexCount();
+        for (int i = 0; i + 1 < n; i++) {
+            drawLine(polygon.getX(i), polygon.getY(i), polygon.getX(i + 1), polygon.getY(i + 1), color);
+        }
+        if (polygon.isClosed() && n > 2) {
+            drawLine(polygon.getX(n - 1), polygon.getY(n - 1), polygon.getX(0), polygon.getY(0), color);
+        }
     }
 
     public void setColor(Color color) {
-        this.currentColor = color;
+        this.color = color.getRGB();
+    }
+
+    public void setColor(int color) {
+        this.color = color;
     }
 
     public Color getColor() {
-        return this.currentColor;
+        return new Color(color);
     }
 
-    private void drawLine(int x0, int y0, int x1, int y1, int color) {
+    private void bind() {
+        Raster target = raster;
+        if (raster == null) {
+            counter = null;
+            clipX1 = 0;
+            clipY1 = 0;
+            clipX2 = Integer.MAX_VALUE;
+            clipY2 = Integer.MAX_VALUE;
+        } else if (raster instanceof ClippedRaster) {
+            ClippedRaster clipped = (ClippedRaster) raster;
+            clipX1 = clipped.getClipX1();
+            clipY1 = clipped.getClipY1();
+            clipX2 = clipped.getClipX2();
+            clipY2 = clipped.getClipY2();
+            target = clipped.getTarget();
+            counter = clipped;
+        } else {
+            counter = null;
+            clipX1 = 0;
+            clipY1 = 0;
+            clipX2 = raster.getWidth() - 1;
+            clipY2 = raster.getHeight() - 1;
+        }
+        if (target instanceof RasterIntBuffer) {
+            pixels = ((RasterIntBuffer) target).getPixels();
+            stride = ((RasterIntBuffer) target).getCapacityWidth();
+        } else {
+            pixels = null;
+        }
+    }
 
+    // Bresenham along the major axis. pixel i of the line sits minor(i) = ceil((2 * minor * i - major) / (2 * major))
+    // steps along the minor axis, so the steps inside the clip window are found up front (Liang-Barsky on the
+    // step index) and the walk starts there, drawing exactly the pixels the whole line has in the window
+    private void drawLine(int x0, int y0, int x1, int y1, int color) {
         int dx = Math.abs(x1 - x0);
         int dy = Math.abs(y1 - y0);
         int sx = x0 < x1 ? 1 : -1;
         int sy = y0 < y1 ? 1 : -1;
-        int err = dx - dy;
-
-        while (true) {
-            raster.setPixel(x0, y0, color);
-            if (x0 == x1 && y0 == y1) break;
-            int e2 = 2 * err;
-            if (e2 > -dy) {
-                err -= dy;
-                x0 += sx;
+        boolean xMajor = dx >= dy;
+        long major = xMajor ? dx : dy;
+        long minor = xMajor ? dy : dx;
+
+        // major steps inside the window along the major axis, then the window's minor bounds turned into major steps
+        long first, last;
+        if (xMajor) {
+            first = Math.max(stepsTo(x0, sx, clipX1, clipX2, true),
+                    firstStep(stepsTo(y0, sy, clipY1, clipY2, true), major, minor));
+            last = Math.min(stepsTo(x0, sx, clipX1, clipX2, false),
+                    lastStep(stepsTo(y0, sy, clipY1, clipY2, false), major, minor));
+        } else {
+            first = Math.max(stepsTo(y0, sy, clipY1, clipY2, true),
+                    firstStep(stepsTo(x0, sx, clipX1, clipX2, true), major, minor));
+            last = Math.min(stepsTo(y0, sy, clipY1, clipY2, false),
+                    lastStep(stepsTo(x0, sx, clipX1, clipX2, false), major, minor));
+        }
+        first = Math.max(first, 0);
+        last = Math.min(last, major);
+        if (first > last) {
+            return;
+        }
+
+        long b = first == 0 ? 0 : Math.max(0, -Math.floorDiv(major - 2 * minor * first, 2 * major));
+        long error = 2 * minor * first - major * (2 * b + 1);
+        int x = (int) (x0 + (xMajor ? first : b) * sx);
+        int y = (int) (y0 + (xMajor ? b : first) * sy);
+        int count = (int) (last - first);
+
+        if (pixels == null) {
+            for (int i = 0; ; i++) {
+                sink.fillSpan(x, x, y, color);
+                if (i == count) break;
+                error += 2 * minor;
+                if (error > 0) {
+                    error -= 2 * major;
+                    if (xMajor) y += sy; else x += sx;
+                }
+                if (xMajor) x += sx; else y += sy;
             }
-            if (e2 < dx) {
-                err += dx;
-                y0 += sy;
+            return;
+        }
+
+        int[] pixels = this.pixels;
+        int value = color | ALPHA;
+        int majorStep = xMajor ? sx : sy * stride;
+        int minorStep = xMajor ? sy * stride : sx;
+        int index = y * stride + x;
+        for (int i = 0; ; i++) {
+            pixels[index] = value;
+            if (i == count) break;
+            error += 2 * minor;
+            if (error > 0) {
+                error -= 2 * major;
+                index += minorStep;
             }
+            index += majorStep;
+        }
+        if (counter != null) {
+            counter.count(1, count + 1);
+        }
+    }
+
+    // steps from start along direction until the coordinate enters [low, high] (entering) or last lies in it
+    private static long stepsTo(int start, int direction, int low, int high, boolean entering) {
+        if (direction > 0) {
+            return entering ? (long) low - start : (long) high - start;
+        }
+        return entering ? (long) start - high : (long) start - low;
+    }
+
+    // first major step whose minor offset reaches j
+    private static long firstStep(long j, long major, long minor) {
+        if (j <= 0) {
+            return 0;
+        }
+        if (minor == 0) {
+            return Long.MAX_VALUE;
+        }
+        return Math.floorDiv(major * (2 * j - 1), 2 * minor) + 1;
+    }
+
+    // last major step whose minor offset stays at or below j
+    private static long lastStep(long j, long major, long minor) {
+        if (j < 0) {
+            return -1;
+        }
+        if (minor == 0) {
+            return major;
         }
+        return Math.floorDiv(major * (2 * j + 1), 2 * minor);
     }
 }
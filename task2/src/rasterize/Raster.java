@@ -1,10 +1,14 @@
 package rasterize;
 
-public interface Raster {
+public interface Raster extends SpanSink {
     void clear();
     void setClearColor(int color);
     int getWidth();
     int getHeight();
     int getPixel(int x, int y);
     void setPixel(int x, int y, int color);
+
+    void copySpan(int srcX, int srcY, int dstX, int dstY, int length);
+    void getRow(int x, int y, int[] dst, int offset, int length);
+    void clearSpan(int x1, int x2, int y);
 }
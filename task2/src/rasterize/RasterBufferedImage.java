@@ -2,10 +2,12 @@ package rasterize;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.util.Arrays;
 
 public class RasterBufferedImage implements Raster {
     private final BufferedImage img;
     private int clearColor;
+    private int[] rowBuffer = new int[0];
 
     public RasterBufferedImage(int width, int height) {
         img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
@@ -45,6 +47,68 @@ public class RasterBufferedImage implements Raster {
         }
     }
 
+    @Override
+    public void fillSpan(int x1, int x2, int y, int color) {
+        if (y < 0 || y >= getHeight()) return;
+        int from = Math.max(Math.min(x1, x2), 0);
+        int to = Math.min(Math.max(x1, x2), getWidth() - 1);
+        int count = to - from + 1;
+        if (count <= 0) return;
+        int[] row = rowBuffer(count);
+        Arrays.fill(row, 0, count, color);
+        img.setRGB(from, y, count, 1, row, 0, count);
+    }
+
+    @Override
+    public void fillSpanMasked(int x1, int x2, int y, int color, int maskColor) {
+        if (y < 0 || y >= getHeight()) return;
+        int from = Math.max(Math.min(x1, x2), 0);
+        int to = Math.min(Math.max(x1, x2), getWidth() - 1);
+        int count = to - from + 1;
+        if (count <= 0) return;
+        int[] row = rowBuffer(count);
+        img.getRGB(from, y, count, 1, row, 0, count);
+        int mask = maskColor & 0xFFFFFF;
+        for (int i = 0; i < count; i++) {
+            if ((row[i] & 0xFFFFFF) != mask) {
+                row[i] = color;
+            }
+        }
+        img.setRGB(from, y, count, 1, row, 0, count);
+    }
+
+    @Override
+    public void copySpan(int srcX, int srcY, int dstX, int dstY, int length) {
+        if (srcY < 0 || srcY >= getHeight() || dstY < 0 || dstY >= getHeight()) return;
+        int skip = Math.max(Math.max(-srcX, -dstX), 0);
+        int count = Math.min(length - skip, Math.min(getWidth() - srcX - skip, getWidth() - dstX - skip));
+        if (count <= 0) return;
+        int[] row = rowBuffer(count);
+        img.getRGB(srcX + skip, srcY, count, 1, row, 0, count);
+        img.setRGB(dstX + skip, dstY, count, 1, row, 0, count);
+    }
+
+    @Override
+    public void getRow(int x, int y, int[] dst, int offset, int length) {
+        if (y < 0 || y >= getHeight()) return;
+        int skip = Math.max(-x, 0);
+        int count = Math.min(length - skip, getWidth() - x - skip);
+        if (count <= 0) return;
+        img.getRGB(x + skip, y, count, 1, dst, offset + skip, count);
+    }
+
+    @Override
+    public void clearSpan(int x1, int x2, int y) {
+        fillSpan(x1, x2, y, clearColor);
+    }
+
+    private int[] rowBuffer(int length) {
+        if (rowBuffer.length < length) {
+            rowBuffer = new int[length];
+        }
+        return rowBuffer;
+    }
+
     @Override
     public void clear() {
         Graphics g = img.getGraphics();
@@ -0,0 +1,187 @@
+package rasterize;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+public class RasterIntBuffer implements Raster {
+    private static final int ALPHA = 0xFF000000;
+
+    private final BufferedImage img;
+    private final int[] pixels;
+    // rows are stride pixels apart; width and height are the viewport in use, at most the allocated size
+    private final int stride, capacityHeight;
+    private int width, height;
+    private final boolean transparent;
+    private int clearColor;
+
+    public RasterIntBuffer(int width, int height) {
+        this(width, height, false);
+    }
+
+    public RasterIntBuffer(int width, int height, boolean transparent) {
+        this.stride = width;
+        this.capacityHeight = height;
+        this.width = width;
+        this.height = height;
+        this.transparent = transparent;
+        img = new BufferedImage(width, height, transparent ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        // writes go straight to the backing array, bypassing setRGB and the ColorModel
+        pixels = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+        clearColor = Color.BLACK.getRGB();
+        clear();
+    }
+
+    public BufferedImage getImg() {
+        return img;
+    }
+
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    public int index(int x, int y) {
+        return y * stride + x;
+    }
+
+    public int getCapacityWidth() {
+        return stride;
+    }
+
+    public int getCapacityHeight() {
+        return capacityHeight;
+    }
+
+    // shrinks or grows the part in use within the allocated size; pixels outside the old viewport are stale
+    public void setViewport(int width, int height) {
+        if (width < 1 || height < 1 || width > stride || height > capacityHeight) {
+            throw new IllegalArgumentException("Viewport " + width + "x" + height + " does not fit "
+                    + stride + "x" + capacityHeight + ".");
+        }
+        this.width = width;
+        this.height = height;
+    }
+
+    public void repaint(Graphics graphics) {
+        graphics.drawImage(img, 0, 0, width, height, 0, 0, width, height, null);
+    }
+
+    public void draw(RasterIntBuffer raster) {
+        clear();
+        int w = Math.min(width, raster.width);
+        int h = Math.min(height, raster.height);
+        for (int y = 0; y < h; y++) {
+            System.arraycopy(raster.pixels, y * raster.stride, pixels, y * stride, w);
+        }
+    }
+
+    // copies the rectangle x1..x2, y1..y2 of a raster with the same size
+    public void copyFrom(RasterIntBuffer raster, int x1, int y1, int x2, int y2) {
+        for (int y = y1; y <= y2; y++) {
+            System.arraycopy(raster.pixels, y * raster.stride + x1, pixels, y * stride + x1, x2 - x1 + 1);
+        }
+    }
+
+    @Override
+    public int getPixel(int x, int y) {
+        // the rows are wider than the viewport, so an x past it would read stale pixels or the next row
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new ArrayIndexOutOfBoundsException("Coordinate out of bounds!");
+        }
+        return pixels[y * stride + x];
+    }
+
+    @Override
+    public void setPixel(int x, int y, int color) {
+        if (x >= 0 && x < width && y >= 0 && y < height) {
+            pixels[y * stride + x] = color | ALPHA;
+        }
+    }
+
+    @Override
+    public void fillSpan(int x1, int x2, int y, int color) {
+        if (y < 0 || y >= height) return;
+        int from = Math.max(Math.min(x1, x2), 0);
+        int to = Math.min(Math.max(x1, x2), width - 1);
+        if (from > to) return;
+        int row = y * stride;
+        Arrays.fill(pixels, row + from, row + to + 1, color | ALPHA);
+    }
+
+    @Override
+    public void fillSpanMasked(int x1, int x2, int y, int color, int maskColor) {
+        if (y < 0 || y >= height) return;
+        int from = Math.max(Math.min(x1, x2), 0);
+        int to = Math.min(Math.max(x1, x2), width - 1);
+        // rgb only, as RasterBufferedImage compares, so a masked fill ignores alpha on either raster
+        int mask = maskColor & 0xFFFFFF;
+        int value = color | ALPHA;
+        int end = y * stride + to;
+        for (int i = y * stride + from; i <= end; i++) {
+            if ((pixels[i] & 0xFFFFFF) != mask) {
+                pixels[i] = value;
+            }
+        }
+    }
+
+    @Override
+    public void copySpan(int srcX, int srcY, int dstX, int dstY, int length) {
+        if (srcY < 0 || srcY >= height || dstY < 0 || dstY >= height) return;
+        int skip = Math.max(Math.max(-srcX, -dstX), 0);
+        int count = Math.min(length - skip, Math.min(width - srcX - skip, width - dstX - skip));
+        if (count <= 0) return;
+        System.arraycopy(pixels, srcY * stride + srcX + skip, pixels, dstY * stride + dstX + skip, count);
+    }
+
+    @Override
+    public void getRow(int x, int y, int[] dst, int offset, int length) {
+        if (y < 0 || y >= height) return;
+        int skip = Math.max(-x, 0);
+        int count = Math.min(length - skip, width - x - skip);
+        if (count <= 0) return;
+        System.arraycopy(pixels, y * stride + x + skip, dst, offset + skip, count);
+    }
+
+    @Override
+    public void clearSpan(int x1, int x2, int y) {
+        if (y < 0 || y >= height) return;
+        int from = Math.max(Math.min(x1, x2), 0);
+        int to = Math.min(Math.max(x1, x2), width - 1);
+        if (from > to) return;
+        int row = y * stride;
+        Arrays.fill(pixels, row + from, row + to + 1, clearValue());
+    }
+
+    @Override
+    public void clear() {
+        int value = clearValue();
+        if (width == stride) {
+            Arrays.fill(pixels, 0, height * stride, value);
+            return;
+        }
+        for (int y = 0; y < height; y++) {
+            Arrays.fill(pixels, y * stride, y * stride + width, value);
+        }
+    }
+
+    private int clearValue() {
+        // a transparent raster keeps the alpha of its clear color so it can be composited over another layer
+        return transparent ? clearColor : clearColor | ALPHA;
+    }
+
+    @Override
+    public void setClearColor(int color) {
+        this.clearColor = color;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+}
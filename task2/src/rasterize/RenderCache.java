@@ -0,0 +1,87 @@
+package rasterize;
+
+import java.util.Arrays;
+
+public class RenderCache {
+
+    private int[] outline = new int[64];
+    private int outlineSize;
+    private int[] fill = new int[64];
+    private int fillSize;
+    private int fillColor;
+    private int maskColor;
+
+    private final Recorder recorder = new Recorder();
+
+    // plain spans, e.g. from the line rasterizer, are recorded as outline runs, masked spans from a filler as fill
+    public SpanSink getRecorder() {
+        return recorder;
+    }
+
+    public void replayOutline(Raster raster) {
+        for (int i = 0; i < outlineSize; i += 4) {
+            raster.fillSpan(outline[i + 1], outline[i + 2], outline[i], outline[i + 3]);
+        }
+    }
+
+    public void replayFill(Raster raster) {
+        for (int i = 0; i < fillSize; i += 3) {
+            raster.fillSpanMasked(fill[i + 1], fill[i + 2], fill[i], fillColor, maskColor);
+        }
+    }
+
+    public boolean hasFill() {
+        return fillSize > 0;
+    }
+
+    private void addOutline(int x1, int x2, int y, int color) {
+        if (outlineSize > 0) {
+            // consecutive pixels of one line on the same row extend the previous run
+            int last = outlineSize - 4;
+            if (outline[last] == y && outline[last + 3] == color) {
+                if (x1 == outline[last + 2] + 1) {
+                    outline[last + 2] = x2;
+                    return;
+                }
+                if (x2 == outline[last + 1] - 1) {
+                    outline[last + 1] = x1;
+                    return;
+                }
+            }
+        }
+        if (outlineSize + 4 > outline.length) {
+            outline = Arrays.copyOf(outline, outline.length * 2);
+        }
+        outline[outlineSize++] = y;
+        outline[outlineSize++] = x1;
+        outline[outlineSize++] = x2;
+        outline[outlineSize++] = color;
+    }
+
+    private void addFill(int x1, int x2, int y, int color, int mask) {
+        if (fillSize > 0 && (color != fillColor || mask != maskColor)) {
+            throw new IllegalStateException("Fill spans of one polygon must share color and mask.");
+        }
+        fillColor = color;
+        maskColor = mask;
+        if (fillSize + 3 > fill.length) {
+            fill = Arrays.copyOf(fill, fill.length * 2);
+        }
+        fill[fillSize++] = y;
+        fill[fillSize++] = x1;
+        fill[fillSize++] = x2;
+    }
+
+    private class Recorder implements SpanSink {
+
+        @Override
+        public void fillSpan(int x1, int x2, int y, int color) {
+            addOutline(Math.min(x1, x2), Math.max(x1, x2), y, color);
+        }
+
+        @Override
+        public void fillSpanMasked(int x1, int x2, int y, int color, int maskColor) {
+            addFill(Math.min(x1, x2), Math.max(x1, x2), y, color, maskColor);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package rasterize;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+
+@Name("grafika.RenderCounters")
+@Label("Render Counters")
+@Category("Grafika")
+@Description("The RenderStats totals once a second, zero while the statistics are off")
+@Period("1 s")
+class RenderCountersEvent extends jdk.jfr.Event {
+
+    @Label("Frames")
+    long frames;
+
+    @Label("Pixels Written")
+    long pixels;
+
+    @Label("Spans")
+    long spans;
+
+    @Label("Polygons")
+    long polygons;
+
+    @Label("Vertices")
+    long vertices;
+}
@@ -0,0 +1,16 @@
+package rasterize;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("grafika.RenderStage")
+@Label("Render Stage")
+@Category("Grafika")
+@Description("One stage of the render pipeline, lasting as long as the stage")
+class RenderStageEvent extends jdk.jfr.Event {
+
+    @Label("Stage")
+    String stage;
+}
@@ -0,0 +1,341 @@
+package rasterize;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// counters and per stage latency histograms of the render pipeline, shared by every thread that draws.
+// off unless -Dgrafika.stats=true, the HUD or JMX switches them on; while off a stage costs two volatile reads
+// and no clock. a running JFR recording gets a RenderStageEvent per stage either way
+public final class RenderStats {
+
+    public enum Stage {
+        CLEAR,
+        OUTLINES,
+        FILLS,
+        // fillPolygonWithHoles recording a polygon's spans into its cache
+        SCAN_LINE,
+        SEED_FILL,
+        CLIP,
+        OVERLAY,
+        // handing a finished frame to the EDT, including catching up the next back buffer
+        PUBLISH,
+        // the EDT drawing the front buffer to the screen
+        PAINT,
+        // everything one render thread job drew, from input to publish
+        FRAME
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+    private static final Histogram[] histograms = new Histogram[STAGES.length];
+    private static final AtomicLong frames = new AtomicLong();
+    private static final AtomicLong pixels = new AtomicLong();
+    private static final AtomicLong spans = new AtomicLong();
+    private static final AtomicLong polygons = new AtomicLong();
+    private static final AtomicLong vertices = new AtomicLong();
+
+    // the newest frame times for the HUD graph, written by the render thread only
+    private static final int RECENT = 128;
+    private static final long[] recentFrames = new long[RECENT];
+    private static volatile int recentCount;
+
+    private static volatile boolean enabled = Boolean.getBoolean("grafika.stats");
+    private static volatile boolean recording;
+    // the JFR event of every stage in progress on a thread. a stage never runs inside itself, and one begun
+    // but never ended is dropped when it begins again
+    private static final ThreadLocal<RenderStageEvent[]> events =
+            ThreadLocal.withInitial(() -> new RenderStageEvent[STAGES.length]);
+
+    static {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new Histogram();
+        }
+        // registering the listener does not start the recorder, it only reports one started later
+        // called right away when the recorder is already up, e.g. started by -XX:StartFlightRecording,
+        // so a recording running before this class loaded is seen too
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recorderInitialized(FlightRecorder recorder) {
+                FlightRecorder.addPeriodicEvent(RenderCountersEvent.class, RenderStats::commitCounters);
+                updateRecording(recorder);
+            }
+
+            @Override
+            public void recordingStateChanged(Recording changed) {
+                updateRecording(FlightRecorder.getFlightRecorder());
+            }
+        });
+    }
+
+    private static void updateRecording(FlightRecorder recorder) {
+        boolean running = false;
+        for (Recording r : recorder.getRecordings()) {
+            running |= r.getState() == RecordingState.RUNNING;
+        }
+        recording = running;
+    }
+
+    private RenderStats() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        RenderStats.enabled = enabled;
+    }
+
+    // the start of a stage for end(), 0 when nothing is listening
+    public static long begin(Stage stage) {
+        if (recording) {
+            RenderStageEvent event = new RenderStageEvent();
+            event.begin();
+            events.get()[stage.ordinal()] = event;
+            return System.nanoTime();
+        }
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public static void end(Stage stage, long start) {
+        if (start == 0) {
+            return;
+        }
+        long time = System.nanoTime() - start;
+        if (enabled) {
+            histograms[stage.ordinal()].record(time);
+            if (stage == Stage.FRAME) {
+                int count = recentCount;
+                recentFrames[count % RECENT] = time;
+                recentCount = count + 1;
+                frames.incrementAndGet();
+            }
+        }
+        if (recording) {
+            RenderStageEvent[] pending = events.get();
+            RenderStageEvent event = pending[stage.ordinal()];
+            if (event != null) {
+                pending[stage.ordinal()] = null;
+                event.end();
+                if (event.shouldCommit()) {
+                    event.stage = stage.name();
+                    event.commit();
+                }
+            }
+        }
+    }
+
+    public static void addSpans(long spanCount, long pixelCount) {
+        if (enabled && spanCount > 0) {
+            spans.addAndGet(spanCount);
+            pixels.addAndGet(pixelCount);
+        }
+    }
+
+    public static void addPolygons(long polygonCount, long vertexCount) {
+        if (enabled && polygonCount > 0) {
+            polygons.addAndGet(polygonCount);
+            vertices.addAndGet(vertexCount);
+        }
+    }
+
+    public static long getFrames() {
+        return frames.get();
+    }
+
+    public static long getPixels() {
+        return pixels.get();
+    }
+
+    public static long getSpans() {
+        return spans.get();
+    }
+
+    public static long getPolygons() {
+        return polygons.get();
+    }
+
+    public static long getVertices() {
+        return vertices.get();
+    }
+
+    public static long getSamples(Stage stage) {
+        return histograms[stage.ordinal()].count.get();
+    }
+
+    // upper bound of the bucket holding the given fraction of the samples, in nanoseconds
+    public static long getPercentile(Stage stage, double fraction) {
+        return histograms[stage.ordinal()].percentile(fraction);
+    }
+
+    public static long getMax(Stage stage) {
+        return histograms[stage.ordinal()].max.get();
+    }
+
+    // copies up to dst.length of the newest frame times, oldest first, and returns how many
+    public static int getRecentFrames(long[] dst) {
+        int count = recentCount;
+        int n = Math.min(Math.min(count, RECENT), dst.length);
+        for (int i = 0; i < n; i++) {
+            dst[i] = recentFrames[(count - n + i) % RECENT];
+        }
+        return n;
+    }
+
+    public static void reset() {
+        for (Histogram histogram : histograms) {
+            histogram.reset();
+        }
+        frames.set(0);
+        pixels.set(0);
+        spans.set(0);
+        polygons.set(0);
+        vertices.set(0);
+    }
+
+    public static String getStatistics() {
+        return String.format("%d frames, %d polygons with %d vertices, %d spans covering %d pixels",
+                getFrames(), getPolygons(), getVertices(), getSpans(), getPixels());
+    }
+
+    public static String getStatistics(Stage stage) {
+        return String.format("%s %d samples, p50 %.3f ms p90 %.3f ms p99 %.3f ms max %.3f ms",
+                stage, getSamples(stage), getPercentile(stage, 0.5) / 1e6, getPercentile(stage, 0.9) / 1e6,
+                getPercentile(stage, 0.99) / 1e6, getMax(stage) / 1e6);
+    }
+
+    // publishes the counters as grafika:type=RenderStats on the platform MBean server
+    public static void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), new ObjectName("grafika:type=RenderStats"));
+        } catch (JMException e) {
+            System.out.println("Render statistics are not available over JMX: " + e.getMessage());
+        }
+    }
+
+    private static void commitCounters() {
+        RenderCountersEvent event = new RenderCountersEvent();
+        event.frames = getFrames();
+        event.pixels = getPixels();
+        event.spans = getSpans();
+        event.polygons = getPolygons();
+        event.vertices = getVertices();
+        event.commit();
+    }
+
+    // log scale buckets, four per power of two, so a percentile overstates by at most a quarter
+    private static final class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(256);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long nanos) {
+            buckets.incrementAndGet(bucket(nanos));
+            count.incrementAndGet();
+            max.accumulateAndGet(nanos, Math::max);
+        }
+
+        long percentile(double fraction) {
+            long total = count.get();
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(fraction * total));
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), max.get());
+                }
+            }
+            return max.get();
+        }
+
+        void reset() {
+            for (int i = 0; i < buckets.length(); i++) {
+                buckets.set(i, 0);
+            }
+            count.set(0);
+            max.set(0);
+        }
+
+        private static int bucket(long nanos) {
+            if (nanos < 4) {
+                return (int) Math.max(nanos, 0);
+            }
+            int log = 63 - Long.numberOfLeadingZeros(nanos);
+            return (log - 1) * 4 + (int) ((nanos >>> (log - 2)) & 3);
+        }
+
+        private static long upperBound(int bucket) {
+            if (bucket < 4) {
+                return bucket;
+            }
+            int log = bucket / 4 + 1;
+            return ((5L + bucket % 4) << (log - 2)) - 1;
+        }
+    }
+
+    private static final class Bean implements RenderStatsMXBean {
+        @Override
+        public boolean isEnabled() {
+            return RenderStats.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            RenderStats.setEnabled(enabled);
+        }
+
+        @Override
+        public long getFrames() {
+            return RenderStats.getFrames();
+        }
+
+        @Override
+        public long getPixelsWritten() {
+            return RenderStats.getPixels();
+        }
+
+        @Override
+        public long getSpans() {
+            return RenderStats.getSpans();
+        }
+
+        @Override
+        public long getPolygons() {
+            return RenderStats.getPolygons();
+        }
+
+        @Override
+        public long getVertices() {
+            return RenderStats.getVertices();
+        }
+
+        @Override
+        public String[] getStageLatencies() {
+            String[] lines = new String[STAGES.length];
+            for (int i = 0; i < STAGES.length; i++) {
+                lines[i] = RenderStats.getStatistics(STAGES[i]);
+            }
+            return lines;
+        }
+
+        @Override
+        public double percentileMillis(String stage, double percentile) {
+            return RenderStats.getPercentile(Stage.valueOf(stage), percentile / 100) / 1e6;
+        }
+
+        @Override
+        public void reset() {
+            RenderStats.reset();
+        }
+    }
+}
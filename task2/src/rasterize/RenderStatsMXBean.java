@@ -0,0 +1,27 @@
+package rasterize;
+
+// the RenderStats counters over JMX, e.g. in JConsole under grafika:type=RenderStats
+public interface RenderStatsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getFrames();
+
+    long getPixelsWritten();
+
+    long getSpans();
+
+    long getPolygons();
+
+    long getVertices();
+
+    // one line per stage with its sample count, p50, p90, p99 and max
+    String[] getStageLatencies();
+
+    // e.g. percentileMillis("FRAME", 99)
+    double percentileMillis(String stage, double percentile);
+
+    void reset();
+}
@@ -0,0 +1,543 @@
+package rasterize;
+
+import model.Polygon;
+import model.SpatialGrid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// the edges of any number of polygons split at every crossing, shared by the boolean engines.
+// engines add the input rings, report the crossing pairs they find, get the resulting pieces through
+// a PieceVisitor, decide which of them bound the result and add those as edges to be traced into rings.
+// arrays are reused between runs, so one arrangement serves one thread only
+final class SegmentArrangement {
+
+    interface PieceVisitor {
+        // forward is true when the segment runs from the group's left end to its right end
+        void visit(int group, int segment, boolean forward);
+    }
+
+    // input edges, integer endpoints and a tag the engine attaches to each ring
+    int segmentCount;
+    int[] segX1 = new int[64];
+    int[] segY1 = new int[64];
+    int[] segX2 = new int[64];
+    int[] segY2 = new int[64];
+    int[] segTag = new int[64];
+
+    // input and intersection points, each stored once so split edges share exact endpoints
+    int vertexCount;
+    double[] vertexX = new double[64];
+    double[] vertexY = new double[64];
+    private int[] vertexTable = new int[128];
+
+    // points every edge is split at, ordered along the edge before the pieces are taken
+    private int[][] splits = new int[64][];
+    private int[] splitCount = new int[64];
+
+    // pieces lying on the same two vertices are one group, running from the left (then lower) vertex
+    int groupCount;
+    int[] groupFrom = new int[64];
+    int[] groupTo = new int[64];
+    private long[] groupKeys = new long[128];
+    private int[] groupTable = new int[128];
+
+    // edges of the result, oriented with the result on their left
+    private int edgeCount;
+    private int[] edgeFrom = new int[64];
+    private int[] edgeTo = new int[64];
+    private double[] edgeAngle = new double[64];
+    private boolean[] edgeUsed = new boolean[64];
+    private int[] outStart = new int[65];
+    private int[] outEdges = new int[64];
+
+    void clear() {
+        segmentCount = 0;
+        vertexCount = 0;
+        groupCount = 0;
+        edgeCount = 0;
+    }
+
+    void addPolygon(Polygon polygon, int tag) {
+        if (polygon.getVertexCount() < 3) {
+            return;
+        }
+        addRing(polygon, tag);
+        for (Polygon hole : polygon.getHoles()) {
+            if (hole.getVertexCount() >= 3) {
+                addRing(hole, tag);
+            }
+        }
+    }
+
+    void addRing(Polygon ring, int tag) {
+        int n = ring.getVertexCount();
+        if (segX1.length < segmentCount + n) {
+            int capacity = Math.max(segmentCount + n, segX1.length * 2);
+            segX1 = Arrays.copyOf(segX1, capacity);
+            segY1 = Arrays.copyOf(segY1, capacity);
+            segX2 = Arrays.copyOf(segX2, capacity);
+            segY2 = Arrays.copyOf(segY2, capacity);
+            segTag = Arrays.copyOf(segTag, capacity);
+        }
+        for (int i = 0; i < n; i++) {
+            int j = i + 1 < n ? i + 1 : 0;
+            int x1 = ring.getX(i), y1 = ring.getY(i);
+            int x2 = ring.getX(j), y2 = ring.getY(j);
+            if (x1 == x2 && y1 == y2) {
+                continue;
+            }
+            segX1[segmentCount] = x1;
+            segY1[segmentCount] = y1;
+            segX2[segmentCount] = x2;
+            segY2[segmentCount] = y2;
+            segTag[segmentCount] = tag;
+            segmentCount++;
+        }
+    }
+
+    // registers the endpoints of every segment, called once all rings are in and before intersect()
+    void prepare() {
+        vertexCount = 0;
+        int size = Integer.highestOneBit(Math.max(segmentCount, 16)) * 4;
+        if (vertexTable.length != size) {
+            vertexTable = new int[size];
+        }
+        Arrays.fill(vertexTable, -1);
+
+        if (splits.length < segmentCount) {
+            splits = Arrays.copyOf(splits, Math.max(segmentCount, splits.length * 2));
+            splitCount = new int[splits.length];
+        }
+        for (int s = 0; s < segmentCount; s++) {
+            splitCount[s] = 0;
+            addSplit(s, vertex(segX1[s], segY1[s]));
+            addSplit(s, vertex(segX2[s], segY2[s]));
+        }
+    }
+
+    void intersect(int i, int j) {
+        long px = segX1[i], py = segY1[i];
+        long rx = segX2[i] - px, ry = segY2[i] - py;
+        long qx = segX1[j], qy = segY1[j];
+        long sx = segX2[j] - qx, sy = segY2[j] - qy;
+        long wx = qx - px, wy = qy - py;
+
+        long denominator = rx * sy - ry * sx;
+        if (denominator == 0) {
+            if (wx * ry - wy * rx != 0) {
+                return;
+            }
+            // collinear, every endpoint inside the other edge splits it
+            splitIfInside(i, segX1[j], segY1[j]);
+            splitIfInside(i, segX2[j], segY2[j]);
+            splitIfInside(j, segX1[i], segY1[i]);
+            splitIfInside(j, segX2[i], segY2[i]);
+            return;
+        }
+
+        long t = wx * sy - wy * sx;
+        long u = wx * ry - wy * rx;
+        if (denominator < 0) {
+            denominator = -denominator;
+            t = -t;
+            u = -u;
+        }
+        if (t < 0 || t > denominator || u < 0 || u > denominator) {
+            return;
+        }
+        boolean insideI = t > 0 && t < denominator;
+        boolean insideJ = u > 0 && u < denominator;
+        if (!insideI && !insideJ) {
+            return;
+        }
+
+        // one exact division per coordinate, so the same crossing found through another pair
+        // of edges rounds to the very same double
+        double x = (double) (px * denominator + rx * t) / denominator;
+        double y = (double) (py * denominator + ry * t) / denominator;
+        int v = vertex(x, y);
+        if (insideI) addSplit(i, v);
+        if (insideJ) addSplit(j, v);
+    }
+
+    private void splitIfInside(int s, int x, int y) {
+        long rx = segX2[s] - segX1[s], ry = segY2[s] - segY1[s];
+        long t = (long) (x - segX1[s]) * rx + (long) (y - segY1[s]) * ry;
+        if (t > 0 && t < rx * rx + ry * ry) {
+            addSplit(s, vertex(x, y));
+        }
+    }
+
+    private void addSplit(int s, int v) {
+        int[] list = splits[s];
+        if (list == null) {
+            list = splits[s] = new int[4];
+        } else if (splitCount[s] == list.length) {
+            list = splits[s] = Arrays.copyOf(list, list.length * 2);
+        }
+        list[splitCount[s]++] = v;
+    }
+
+    private int vertex(double x, double y) {
+        x += 0.0;
+        y += 0.0;
+        int mask = vertexTable.length - 1;
+        int slot = hash(Double.doubleToLongBits(x) * 31 + Double.doubleToLongBits(y)) & mask;
+        while (vertexTable[slot] != -1) {
+            int v = vertexTable[slot];
+            if (vertexX[v] == x && vertexY[v] == y) {
+                return v;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (vertexCount == vertexX.length) {
+            vertexX = Arrays.copyOf(vertexX, vertexCount * 2);
+            vertexY = Arrays.copyOf(vertexY, vertexCount * 2);
+        }
+        int v = vertexCount++;
+        vertexX[v] = x;
+        vertexY[v] = y;
+        vertexTable[slot] = v;
+        if (vertexCount * 2 > vertexTable.length) {
+            rehashVertices();
+        }
+        return v;
+    }
+
+    private void rehashVertices() {
+        vertexTable = new int[vertexTable.length * 2];
+        Arrays.fill(vertexTable, -1);
+        int mask = vertexTable.length - 1;
+        for (int v = 0; v < vertexCount; v++) {
+            int slot = hash(Double.doubleToLongBits(vertexX[v]) * 31 + Double.doubleToLongBits(vertexY[v])) & mask;
+            while (vertexTable[slot] != -1) {
+                slot = (slot + 1) & mask;
+            }
+            vertexTable[slot] = v;
+        }
+    }
+
+    // left of b in sweep order: smaller x, or the same x and smaller y
+    boolean before(int a, int b) {
+        return vertexX[a] < vertexX[b] || (vertexX[a] == vertexX[b] && vertexY[a] < vertexY[b]);
+    }
+
+    void buildGroups(PieceVisitor visitor) {
+        groupCount = 0;
+        int size = Integer.highestOneBit(Math.max(vertexCount, 16)) * 4;
+        if (groupTable.length != size) {
+            groupTable = new int[size];
+            groupKeys = new long[size];
+        }
+        Arrays.fill(groupTable, -1);
+
+        for (int s = 0; s < segmentCount; s++) {
+            int[] list = splits[s];
+            int count = splitCount[s];
+            sortAlong(s, list, count);
+            for (int k = 0; k + 1 < count; k++) {
+                int a = list[k], b = list[k + 1];
+                if (a == b) {
+                    continue;
+                }
+                boolean forward = before(a, b);
+                int g = forward ? group(a, b) : group(b, a);
+                visitor.visit(g, s, forward);
+            }
+        }
+    }
+
+    private void sortAlong(int s, int[] list, int count) {
+        double x1 = segX1[s], y1 = segY1[s];
+        double rx = segX2[s] - x1, ry = segY2[s] - y1;
+        // a handful of split points per edge, insertion sort by the distance from the start
+        for (int i = 1; i < count; i++) {
+            int v = list[i];
+            double key = (vertexX[v] - x1) * rx + (vertexY[v] - y1) * ry;
+            int j = i - 1;
+            while (j >= 0 && (vertexX[list[j]] - x1) * rx + (vertexY[list[j]] - y1) * ry > key) {
+                list[j + 1] = list[j];
+                j--;
+            }
+            list[j + 1] = v;
+        }
+    }
+
+    private int group(int from, int to) {
+        long key = ((long) from << 32) | to;
+        int mask = groupTable.length - 1;
+        int slot = hash(key) & mask;
+        while (groupTable[slot] != -1) {
+            if (groupKeys[slot] == key) {
+                return groupTable[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (groupCount == groupFrom.length) {
+            int capacity = groupCount * 2;
+            groupFrom = Arrays.copyOf(groupFrom, capacity);
+            groupTo = Arrays.copyOf(groupTo, capacity);
+        }
+        int g = groupCount++;
+        groupFrom[g] = from;
+        groupTo[g] = to;
+        groupKeys[slot] = key;
+        groupTable[slot] = g;
+        if (groupCount * 2 > groupTable.length) {
+            rehashGroups();
+        }
+        return g;
+    }
+
+    private void rehashGroups() {
+        groupTable = new int[groupTable.length * 2];
+        groupKeys = new long[groupTable.length];
+        Arrays.fill(groupTable, -1);
+        int mask = groupTable.length - 1;
+        for (int g = 0; g < groupCount; g++) {
+            long key = ((long) groupFrom[g] << 32) | groupTo[g];
+            int slot = hash(key) & mask;
+            while (groupTable[slot] != -1) {
+                slot = (slot + 1) & mask;
+            }
+            groupKeys[slot] = key;
+            groupTable[slot] = g;
+        }
+    }
+
+    // the bits of small whole doubles all sit at the top, so mix them down into the low bits the tables use
+    private static int hash(long key) {
+        key = (key ^ (key >>> 33)) * 0xFF51AFD7ED558CCDL;
+        key = (key ^ (key >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return (int) (key ^ (key >>> 33));
+    }
+
+    void addEdge(int from, int to) {
+        if (edgeCount == edgeFrom.length) {
+            int capacity = edgeCount * 2;
+            edgeFrom = Arrays.copyOf(edgeFrom, capacity);
+            edgeTo = Arrays.copyOf(edgeTo, capacity);
+            edgeAngle = Arrays.copyOf(edgeAngle, capacity);
+            edgeUsed = Arrays.copyOf(edgeUsed, capacity);
+            outEdges = new int[capacity];
+        }
+        edgeFrom[edgeCount] = from;
+        edgeTo[edgeCount] = to;
+        edgeAngle[edgeCount] = Math.atan2(vertexY[to] - vertexY[from], vertexX[to] - vertexX[from]);
+        edgeUsed[edgeCount] = false;
+        edgeCount++;
+    }
+
+    List<Polygon> buildPolygons() {
+        List<Polygon> result = new ArrayList<>();
+        if (edgeCount == 0) {
+            return result;
+        }
+
+        if (outStart.length < vertexCount + 1) {
+            outStart = new int[vertexCount + 1];
+        }
+        Arrays.fill(outStart, 0, vertexCount + 1, 0);
+        for (int e = 0; e < edgeCount; e++) {
+            outStart[edgeFrom[e] + 1]++;
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            outStart[v + 1] += outStart[v];
+        }
+        int[] fill = Arrays.copyOf(outStart, vertexCount);
+        for (int e = 0; e < edgeCount; e++) {
+            outEdges[fill[edgeFrom[e]]++] = e;
+        }
+
+        Map<Polygon, double[]> outers = new IdentityHashMap<>();
+        List<Polygon> outerPolygons = new ArrayList<>();
+        List<double[]> holes = new ArrayList<>();
+        List<Polygon> holePolygons = new ArrayList<>();
+        int[] ring = new int[16];
+
+        for (int start = 0; start < edgeCount; start++) {
+            if (edgeUsed[start]) {
+                continue;
+            }
+            int length = 0;
+            int e = start;
+            boolean closed = false;
+            while (!edgeUsed[e]) {
+                edgeUsed[e] = true;
+                if (length == ring.length) {
+                    ring = Arrays.copyOf(ring, length * 2);
+                }
+                ring[length++] = edgeFrom[e];
+                e = nextEdge(e);
+                if (e < 0) {
+                    break;
+                }
+                if (e == start) {
+                    closed = true;
+                    break;
+                }
+            }
+            if (!closed || length < 3) {
+                continue;
+            }
+
+            double[] coords = new double[length * 2];
+            for (int i = 0; i < length; i++) {
+                coords[2 * i] = vertexX[ring[i]];
+                coords[2 * i + 1] = vertexY[ring[i]];
+            }
+            Polygon polygon = toPolygon(coords);
+            if (polygon == null) {
+                continue;
+            }
+            // the result lies left of every edge, so outlines wind positive and holes negative
+            if (signedArea(coords) > 0) {
+                outers.put(polygon, coords);
+                outerPolygons.add(polygon);
+            } else {
+                polygon.setHole(true);
+                holes.add(coords);
+                holePolygons.add(polygon);
+            }
+        }
+
+        if (!holes.isEmpty()) {
+            assignHoles(outers, outerPolygons, holes, holePolygons);
+        }
+        result.addAll(outerPolygons);
+        return result;
+    }
+
+    // every hole goes to the smallest outline around the middle of its first edge,
+    // looked up through a grid so thousands of rings stay cheap
+    private static void assignHoles(Map<Polygon, double[]> outers, List<Polygon> outerPolygons,
+                                    List<double[]> holes, List<Polygon> holePolygons) {
+        SpatialGrid grid = new SpatialGrid();
+        for (Polygon outer : outerPolygons) {
+            grid.add(outer);
+        }
+        Map<Polygon, List<Polygon>> holesOf = new IdentityHashMap<>();
+        List<Polygon> candidates = new ArrayList<>();
+        for (int h = 0; h < holes.size(); h++) {
+            double[] hole = holes.get(h);
+            double x = (hole[0] + hole[2]) * 0.5;
+            double y = (hole[1] + hole[3]) * 0.5;
+            // the outlines were rounded to ints, so look a pixel around the point
+            candidates.clear();
+            grid.query((int) Math.floor(x) - 1, (int) Math.floor(y) - 1, (int) Math.ceil(x) + 1, (int) Math.ceil(y) + 1, candidates);
+            Polygon owner = null;
+            double ownerArea = Double.MAX_VALUE;
+            for (Polygon candidate : candidates) {
+                double[] coords = outers.get(candidate);
+                double area = signedArea(coords);
+                if (area < ownerArea && contains(coords, x, y)) {
+                    owner = candidate;
+                    ownerArea = area;
+                }
+            }
+            if (owner != null) {
+                holesOf.computeIfAbsent(owner, k -> new ArrayList<>()).add(holePolygons.get(h));
+            }
+        }
+        for (Map.Entry<Polygon, List<Polygon>> entry : holesOf.entrySet()) {
+            entry.getKey().addHoles(entry.getValue());
+        }
+    }
+
+    // the next edge of the same ring: the first outgoing edge clockwise from the way back,
+    // so rings touching in a vertex are traced separately
+    private int nextEdge(int e) {
+        int v = edgeTo[e];
+        double back = edgeAngle[e] + Math.PI;
+        int best = -1;
+        double bestTurn = Double.MAX_VALUE;
+        for (int k = outStart[v]; k < outStart[v + 1]; k++) {
+            int candidate = outEdges[k];
+            double turn = back - edgeAngle[candidate];
+            while (turn <= 0) turn += 2 * Math.PI;
+            while (turn > 2 * Math.PI) turn -= 2 * Math.PI;
+            if (turn < bestTurn) {
+                bestTurn = turn;
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    // rounds a ring to whole pixels, null when nothing with an area is left
+    static Polygon toPolygon(double[] coords) {
+        int n = coords.length / 2;
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            int x = (int) Math.round(coords[2 * i]);
+            int y = (int) Math.round(coords[2 * i + 1]);
+            if (count > 0 && xs[count - 1] == x && ys[count - 1] == y) {
+                continue;
+            }
+            xs[count] = x;
+            ys[count] = y;
+            count++;
+        }
+
+        // rounding can leave repeated, collinear or spike vertices behind
+        boolean changed = true;
+        while (changed && count >= 3) {
+            changed = false;
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                int prev = kept > 0 ? kept - 1 : count - 1;
+                int next = i + 1 < count ? i + 1 : 0;
+                long cross = (long) (xs[i] - xs[prev]) * (ys[next] - ys[i]) - (long) (ys[i] - ys[prev]) * (xs[next] - xs[i]);
+                boolean repeated = xs[i] == xs[prev] && ys[i] == ys[prev];
+                if (repeated || cross == 0) {
+                    changed = true;
+                    continue;
+                }
+                xs[kept] = xs[i];
+                ys[kept] = ys[i];
+                kept++;
+            }
+            count = kept;
+        }
+        if (count < 3) {
+            return null;
+        }
+
+        Polygon polygon = new Polygon();
+        for (int i = 0; i < count; i++) {
+            polygon.addVertex(xs[i], ys[i]);
+        }
+        polygon.setClosed(true);
+        return polygon;
+    }
+
+    private static double signedArea(double[] coords) {
+        double area = 0;
+        int n = coords.length / 2;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            area += coords[2 * j] * coords[2 * i + 1] - coords[2 * i] * coords[2 * j + 1];
+        }
+        return area * 0.5;
+    }
+
+    private static boolean contains(double[] coords, double x, double y) {
+        boolean inside = false;
+        int n = coords.length / 2;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            double xi = coords[2 * i], yi = coords[2 * i + 1];
+            double xj = coords[2 * j], yj = coords[2 * j + 1];
+            if ((yi > y) != (yj > y) && x < (xj - xi) * (y - yi) / (yj - yi) + xi) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+}
@@ -0,0 +1,214 @@
+package rasterize;
+
+import model.Polygon;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class SegmentBooleanEngine implements BooleanEngine {
+
+    // distance below which a ray crossing counts as lying on the ray's own start edge
+    private static final double EPSILON = 1e-7;
+    private static final int SUBJECT = 1;
+    private static final int CLIPPER = 2;
+
+    private final SegmentArrangement arrangement = new SegmentArrangement();
+    private final ConvexClipper convexClipper = new ConvexClipper();
+
+    // the bits count how often each operand's boundary covers a group
+    private int[] groupParity = new int[64];
+    private final SegmentArrangement.PieceVisitor parity = (group, segment, forward) -> {
+        if (group == groupParity.length) {
+            groupParity = Arrays.copyOf(groupParity, group * 2);
+        }
+        groupParity[group] ^= arrangement.segTag[segment];
+    };
+
+    // edges bucketed by rows and columns for the ray casts
+    private final SegmentBuckets rows = new SegmentBuckets(true);
+    private final SegmentBuckets columns = new SegmentBuckets(false);
+
+    @Override
+    public List<Polygon> apply(Polygon subject, Polygon clipper, BooleanOperation operation) {
+        // only intersections have a convex fast path: a difference of convex shapes is in general neither
+        // convex nor one piece, so it goes through the arrangement like everything else
+        if (operation == BooleanOperation.INTERSECTION && isConvexOutline(subject) && isConvexOutline(clipper)) {
+            List<Polygon> result = new ArrayList<>();
+            Polygon common = convexClipper.intersect(subject, clipper);
+            if (common != null) {
+                result.add(common);
+            }
+            return result;
+        }
+
+        arrangement.clear();
+        arrangement.addPolygon(subject, SUBJECT);
+        arrangement.addPolygon(clipper, CLIPPER);
+
+        arrangement.prepare();
+        findIntersections();
+        Arrays.fill(groupParity, 0);
+        arrangement.buildGroups(parity);
+        collectEdges(operation);
+        return arrangement.buildPolygons();
+    }
+
+    private static boolean isConvexOutline(Polygon polygon) {
+        return polygon.isConvex() && polygon.getHoles().isEmpty();
+    }
+
+    private void findIntersections() {
+        int n = arrangement.segmentCount;
+        int[] segX1 = arrangement.segX1, segY1 = arrangement.segY1;
+        int[] segX2 = arrangement.segX2, segY2 = arrangement.segY2;
+        long[] order = new long[n];
+        for (int s = 0; s < n; s++) {
+            order[s] = ((long) Math.min(segX1[s], segX2[s]) << 32) | s;
+        }
+
+        // edges sorted by their left end, each one only meets the edges starting before its right end
+        Arrays.sort(order);
+        for (int a = 0; a < n; a++) {
+            int i = (int) order[a];
+            int maxX = Math.max(segX1[i], segX2[i]);
+            int minY = Math.min(segY1[i], segY2[i]);
+            int maxY = Math.max(segY1[i], segY2[i]);
+            for (int b = a + 1; b < n; b++) {
+                int j = (int) order[b];
+                if ((int) (order[b] >> 32) > maxX) {
+                    break;
+                }
+                if (Math.max(segY1[j], segY2[j]) < minY || Math.min(segY1[j], segY2[j]) > maxY) {
+                    continue;
+                }
+                arrangement.intersect(i, j);
+            }
+        }
+    }
+
+    private void collectEdges(BooleanOperation operation) {
+        int segmentCount = arrangement.segmentCount;
+        rows.build(segmentCount);
+        columns.build(segmentCount);
+        double[] vertexX = arrangement.vertexX, vertexY = arrangement.vertexY;
+
+        for (int g = 0; g < arrangement.groupCount; g++) {
+            int a = arrangement.groupFrom[g], b = arrangement.groupTo[g];
+            double dx = vertexX[b] - vertexX[a];
+            double dy = vertexY[b] - vertexY[a];
+            double mx = (vertexX[a] + vertexX[b]) * 0.5;
+            double my = (vertexY[a] + vertexY[b]) * 0.5;
+
+            // which operands cover the side a ray from the middle of the piece leaves through,
+            // the other side differs by the operands whose boundary the piece is
+            boolean horizontal = dy == 0;
+            int plus = horizontal ? columns.cast(mx, my) : rows.cast(mx, my);
+            int minus = plus ^ groupParity[g];
+            boolean inPlus = operation.contains((plus & SUBJECT) != 0, (plus & CLIPPER) != 0);
+            boolean inMinus = operation.contains((minus & SUBJECT) != 0, (minus & CLIPPER) != 0);
+            if (inPlus == inMinus) {
+                continue;
+            }
+
+            // +x lies left of a piece going up, +y left of a piece going right
+            boolean plusIsLeft = horizontal ? dx > 0 : dy < 0;
+            if (plusIsLeft == inPlus) {
+                arrangement.addEdge(a, b);
+            } else {
+                arrangement.addEdge(b, a);
+            }
+        }
+    }
+
+    // edges bucketed along one axis; cast() shoots a ray from a point towards +x (rows) or +y (columns)
+    // and returns the operand bits whose edges it crosses an odd number of times
+    private class SegmentBuckets {
+        private final boolean horizontalRays;
+        private int min;
+        private int size;
+        private int count;
+        private int[] start = new int[2];
+        private int[] entries = new int[16];
+
+        SegmentBuckets(boolean horizontalRays) {
+            this.horizontalRays = horizontalRays;
+        }
+
+        void build(int segments) {
+            min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int s = 0; s < segments; s++) {
+                min = Math.min(min, Math.min(low(s), high(s)));
+                max = Math.max(max, Math.max(low(s), high(s)));
+            }
+            count = Math.max(1, Math.min(1024, (int) Math.sqrt(segments)));
+            size = Math.max(1, (max - min) / count + 1);
+
+            if (start.length < count + 1) {
+                start = new int[count + 1];
+            }
+            Arrays.fill(start, 0, count + 1, 0);
+            int total = 0;
+            for (int s = 0; s < segments; s++) {
+                int first = bucket(Math.min(low(s), high(s)));
+                int last = bucket(Math.max(low(s), high(s)));
+                for (int b = first; b <= last; b++) {
+                    start[b + 1]++;
+                }
+                total += last - first + 1;
+            }
+            for (int b = 0; b < count; b++) {
+                start[b + 1] += start[b];
+            }
+            if (entries.length < total) {
+                entries = new int[total];
+            }
+            int[] fill = Arrays.copyOf(start, count);
+            for (int s = 0; s < segments; s++) {
+                int first = bucket(Math.min(low(s), high(s)));
+                int last = bucket(Math.max(low(s), high(s)));
+                for (int b = first; b <= last; b++) {
+                    entries[fill[b]++] = s;
+                }
+            }
+        }
+
+        int cast(double x, double y) {
+            int[] segX1 = arrangement.segX1, segY1 = arrangement.segY1;
+            int[] segX2 = arrangement.segX2, segY2 = arrangement.segY2;
+            double across = horizontalRays ? y : x;
+            double along = horizontalRays ? x : y;
+            int b = bucket(across);
+            int bits = 0;
+            for (int k = start[b]; k < start[b + 1]; k++) {
+                int s = entries[k];
+                double a1 = horizontalRays ? segY1[s] : segX1[s];
+                double a2 = horizontalRays ? segY2[s] : segX2[s];
+                if ((a1 > across) == (a2 > across)) {
+                    continue;
+                }
+                double b1 = horizontalRays ? segX1[s] : segY1[s];
+                double b2 = horizontalRays ? segX2[s] : segY2[s];
+                double hit = b1 + (b2 - b1) * (across - a1) / (a2 - a1);
+                if (hit > along + EPSILON) {
+                    bits ^= arrangement.segTag[s];
+                }
+            }
+            return bits;
+        }
+
+        private int low(int s) {
+            return horizontalRays ? arrangement.segY1[s] : arrangement.segX1[s];
+        }
+
+        private int high(int s) {
+            return horizontalRays ? arrangement.segY2[s] : arrangement.segX2[s];
+        }
+
+        private int bucket(double value) {
+            int b = (int) Math.floor((value - min) / size);
+            return Math.max(0, Math.min(count - 1, b));
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package rasterize;
+
+// what the line rasterizer and the scan line filler write: a raster, or a RenderCache recording the spans
+public interface SpanSink {
+    void fillSpan(int x1, int x2, int y, int color);
+    void fillSpanMasked(int x1, int x2, int y, int color, int maskColor);
+}
@@ -0,0 +1,280 @@
+package rasterize;
+
+import model.Polygon;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+// boolean operations over any number of polygons in one pass. the edges of all operands are split
+// at their crossings, then a sweep from left to right keeps the pieces crossing the sweep line ordered
+// bottom to top, so every piece learns how many operands cover the region below it from its neighbour
+// instead of casting a ray. the first operand is the subject of DIFFERENCE, the rest are subtracted
+public class SweepBooleanEngine implements BooleanEngine {
+
+    // ring tags: the sign carries the ring orientation, the magnitude whether it belongs to the first operand
+    private static final int FIRST = 1;
+    private static final int REST = 2;
+
+    private final SegmentArrangement arrangement = new SegmentArrangement();
+    // operands that may intersect themselves are first resolved into simple rings
+    private final SegmentBooleanEngine resolver = new SegmentBooleanEngine();
+    private final Polygon empty = new Polygon();
+
+    // winding of the first and of the other operands across each group, then just above it
+    private int[] groupFirst = new int[64];
+    private int[] groupRest = new int[64];
+    private int[] aboveFirst = new int[64];
+    private int[] aboveRest = new int[64];
+    private final SegmentArrangement.PieceVisitor winding = (group, segment, forward) -> {
+        if (group == groupFirst.length) {
+            groupFirst = Arrays.copyOf(groupFirst, group * 2);
+            groupRest = Arrays.copyOf(groupRest, group * 2);
+        }
+        int tag = arrangement.segTag[segment];
+        int w = forward == tag > 0 ? 1 : -1;
+        if (tag == FIRST || tag == -FIRST) {
+            groupFirst[group] += w;
+        } else {
+            groupRest[group] += w;
+        }
+    };
+
+    // active edges of the crossing search, bucketed by rows
+    private int[][] active = new int[16][];
+    private int[] activeCount = new int[16];
+    private int[] seen = new int[64];
+
+    private final TreeSet<Integer> status = new TreeSet<>(this::compareGroups);
+
+    @Override
+    public List<Polygon> apply(Polygon subject, Polygon clipper, BooleanOperation operation) {
+        return apply(Arrays.asList(subject, clipper), operation);
+    }
+
+    public List<Polygon> apply(List<Polygon> polygons, BooleanOperation operation) {
+        arrangement.clear();
+        for (int k = 0; k < polygons.size(); k++) {
+            addOperand(polygons.get(k), k == 0 ? FIRST : REST);
+        }
+
+        arrangement.prepare();
+        findIntersections();
+        Arrays.fill(groupFirst, 0);
+        Arrays.fill(groupRest, 0);
+        arrangement.buildGroups(winding);
+        sweep(operation, polygons.size());
+        return arrangement.buildPolygons();
+    }
+
+    // rings go in oriented so that each operand winds once around its inside: outlines positive, holes negative
+    private void addOperand(Polygon polygon, int tag) {
+        if (polygon.getVertexCount() < 3) {
+            return;
+        }
+        if (polygon.getHoles().isEmpty() && polygon.isConvex()) {
+            double area = polygon.getSignedArea();
+            if (area != 0) {
+                arrangement.addRing(polygon, area > 0 ? tag : -tag);
+            }
+            return;
+        }
+        for (Polygon part : resolver.apply(polygon, empty, BooleanOperation.UNION)) {
+            arrangement.addPolygon(part, tag);
+        }
+    }
+
+    // sweeps the edges by their left end and keeps the ones still reaching the sweep line in row buckets,
+    // so each new edge is only tested against active edges sharing a row with it
+    private void findIntersections() {
+        int n = arrangement.segmentCount;
+        if (n == 0) {
+            return;
+        }
+        int[] segX1 = arrangement.segX1, segY1 = arrangement.segY1;
+        int[] segX2 = arrangement.segX2, segY2 = arrangement.segY2;
+
+        long[] order = new long[n];
+        int minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+        long heights = 0;
+        for (int s = 0; s < n; s++) {
+            order[s] = ((long) Math.min(segX1[s], segX2[s]) << 32) | s;
+            minY = Math.min(minY, Math.min(segY1[s], segY2[s]));
+            maxY = Math.max(maxY, Math.max(segY1[s], segY2[s]));
+            heights += Math.abs(segY2[s] - segY1[s]);
+        }
+        Arrays.sort(order);
+
+        // rows about as high as an average edge, so an edge sits in a couple of them
+        int rowHeight = (int) Math.max(1, heights / n);
+        int rows = (int) Math.min(4096, ((long) maxY - minY) / rowHeight + 1);
+        rowHeight = (int) (((long) maxY - minY) / rows + 1);
+        if (active.length < rows) {
+            active = Arrays.copyOf(active, rows);
+            activeCount = new int[rows];
+        }
+        Arrays.fill(activeCount, 0, rows, 0);
+        if (seen.length < n) {
+            seen = new int[Math.max(n, seen.length * 2)];
+        }
+        Arrays.fill(seen, 0, n, -1);
+
+        for (int a = 0; a < n; a++) {
+            int i = (int) order[a];
+            int x = (int) (order[a] >> 32);
+            int low = Math.min(segY1[i], segY2[i]);
+            int high = Math.max(segY1[i], segY2[i]);
+            int first = (low - minY) / rowHeight;
+            int last = (high - minY) / rowHeight;
+            for (int r = first; r <= last; r++) {
+                int[] list = active[r];
+                int count = activeCount[r];
+                for (int k = 0; k < count; ) {
+                    int j = list[k];
+                    if (Math.max(segX1[j], segX2[j]) < x) {
+                        // behind the sweep line for good
+                        list[k] = list[--count];
+                        continue;
+                    }
+                    k++;
+                    if (seen[j] == a) {
+                        continue;
+                    }
+                    seen[j] = a;
+                    if (Math.max(segY1[j], segY2[j]) >= low && Math.min(segY1[j], segY2[j]) <= high) {
+                        arrangement.intersect(j, i);
+                    }
+                }
+                if (list == null) {
+                    list = active[r] = new int[8];
+                } else if (count == list.length) {
+                    list = active[r] = Arrays.copyOf(list, count * 2);
+                }
+                list[count++] = i;
+                activeCount[r] = count;
+            }
+        }
+    }
+
+    private void sweep(BooleanOperation operation, int operands) {
+        int groupCount = arrangement.groupCount;
+        int[] groupFrom = arrangement.groupFrom, groupTo = arrangement.groupTo;
+        if (aboveFirst.length < groupCount) {
+            aboveFirst = new int[groupFirst.length];
+            aboveRest = new int[groupFirst.length];
+        }
+
+        // a group enters the sweep at its left vertex and leaves at its right one; at a shared vertex
+        // the groups ending there leave before the ones starting there enter
+        int[] rank = vertexRanks();
+        long[] events = new long[groupCount * 2];
+        int eventCount = 0;
+        for (int g = 0; g < groupCount; g++) {
+            if (groupFirst[g] == 0 && groupRest[g] == 0) {
+                // coincident edges cancelling out, e.g. the shared edge of two neighbours in a union
+                continue;
+            }
+            events[eventCount++] = ((long) rank[groupTo[g]] << 32) | g;
+            events[eventCount++] = ((long) rank[groupFrom[g]] << 32) | 0x80000000L | g;
+        }
+        Arrays.sort(events, 0, eventCount);
+
+        status.clear();
+        int e = 0;
+        while (e < eventCount) {
+            int vertex = (int) (events[e] >>> 32);
+            while (e < eventCount && (int) (events[e] >>> 32) == vertex && (events[e] & 0x80000000L) == 0) {
+                status.remove((int) events[e] & 0x7FFFFFFF);
+                e++;
+            }
+
+            // the groups starting here are neighbours in the status, walked bottom to top
+            // so each one continues the winding of the one below
+            int batch = 0;
+            Integer lowest = null;
+            while (e < eventCount && (int) (events[e] >>> 32) == vertex) {
+                Integer g = (int) events[e] & 0x7FFFFFFF;
+                status.add(g);
+                if (lowest == null || compareGroups(g, lowest) < 0) {
+                    lowest = g;
+                }
+                batch++;
+                e++;
+            }
+            if (batch == 0) {
+                continue;
+            }
+
+            Integer below = status.lower(lowest);
+            int first = below == null ? 0 : aboveFirst[below];
+            int rest = below == null ? 0 : aboveRest[below];
+            Iterator<Integer> it = status.tailSet(lowest, true).iterator();
+            for (int k = 0; k < batch; k++) {
+                int g = it.next();
+                boolean inBelow = operation.contains(first, rest, operands);
+                first += groupFirst[g];
+                rest += groupRest[g];
+                aboveFirst[g] = first;
+                aboveRest[g] = rest;
+                boolean inAbove = operation.contains(first, rest, operands);
+                if (inBelow != inAbove) {
+                    // left of a piece running rightwards (or upwards) is above it
+                    if (inAbove) {
+                        arrangement.addEdge(groupFrom[g], groupTo[g]);
+                    } else {
+                        arrangement.addEdge(groupTo[g], groupFrom[g]);
+                    }
+                }
+            }
+        }
+        status.clear();
+    }
+
+    private int[] vertexRanks() {
+        int vertexCount = arrangement.vertexCount;
+        Integer[] sorted = new Integer[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            sorted[v] = v;
+        }
+        Arrays.sort(sorted, (a, b) -> arrangement.before(a, b) ? -1 : arrangement.before(b, a) ? 1 : 0);
+        int[] rank = new int[vertexCount];
+        for (int r = 0; r < vertexCount; r++) {
+            rank[sorted[r]] = r;
+        }
+        return rank;
+    }
+
+    // status order: which of two groups crossing the sweep line lies lower. pieces never cross,
+    // so the one that entered later is compared against the line of the other
+    private int compareGroups(int a, int b) {
+        if (a == b) {
+            return 0;
+        }
+        int[] groupFrom = arrangement.groupFrom, groupTo = arrangement.groupTo;
+        int fromA = groupFrom[a], fromB = groupFrom[b];
+        int side;
+        if (fromA == fromB) {
+            side = -side(fromA, groupTo[a], groupTo[b]);
+        } else if (arrangement.before(fromA, fromB)) {
+            side = side(fromA, groupTo[a], fromB);
+            if (side == 0) {
+                side = side(fromA, groupTo[a], groupTo[b]);
+            }
+            side = -side;
+        } else {
+            side = side(fromB, groupTo[b], fromA);
+            if (side == 0) {
+                side = side(fromB, groupTo[b], groupTo[a]);
+            }
+        }
+        return side != 0 ? side : Integer.compare(a, b);
+    }
+
+    // 1 when r lies above the line through p and q, p being left of q
+    private int side(int p, int q, int r) {
+        double[] x = arrangement.vertexX, y = arrangement.vertexY;
+        double cross = (x[q] - x[p]) * (y[r] - y[p]) - (y[q] - y[p]) * (x[r] - x[p]);
+        return cross > 0 ? 1 : cross < 0 ? -1 : 0;
+    }
+}
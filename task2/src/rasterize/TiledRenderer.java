@@ -0,0 +1,161 @@
+package rasterize;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+public class TiledRenderer {
+
+    public interface BandRenderer {
+        void render(ClippedRaster band);
+    }
+
+    private static final int MIN_BAND_HEIGHT = 16;
+    private static final int BANDS_PER_THREAD = 4;
+
+    private final int threads;
+    private final ForkJoinPool pool;
+
+    // bands and the helper tasks are kept between frames and only re-aimed, so a steady frame allocates nothing
+    private ClippedRaster[] bands = new ClippedRaster[0];
+    private final BandTask[] helpers;
+    private BandRenderer renderer;
+    private int frameBands;
+    // the next band of this frame nobody has taken yet
+    private final AtomicInteger nextBand = new AtomicInteger();
+
+    public TiledRenderer(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1.");
+        }
+        this.threads = threads;
+        this.pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        // the calling thread draws bands too, so it and these make up the thread count
+        this.helpers = new BandTask[threads - 1];
+        for (int h = 0; h < helpers.length; h++) {
+            helpers[h] = new BandTask();
+        }
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void render(Raster raster, DirtyRegion region, BandRenderer renderer) {
+        int height = region.getMaxY() - region.getMinY() + 1;
+        if (pool == null || height < 2 * MIN_BAND_HEIGHT) {
+            ClippedRaster band = band(0, raster);
+            band.setClip(region);
+            renderer.render(band);
+            band.flushCounts();
+            return;
+        }
+
+        // bands own disjoint rows, so every pixel is written by one thread in the same order as the serial pass
+        int bandCount = threads * BANDS_PER_THREAD;
+        int bandHeight = Math.max(MIN_BAND_HEIGHT, (height + bandCount - 1) / bandCount);
+        int count = (height + bandHeight - 1) / bandHeight;
+        for (int b = 0; b < count; b++) {
+            int y1 = region.getMinY() + b * bandHeight;
+            int y2 = Math.min(y1 + bandHeight - 1, region.getMaxY());
+            band(b, raster).setClip(region.getMinX(), y1, region.getMaxX(), y2);
+        }
+        this.renderer = renderer;
+        frameBands = count;
+        nextBand.set(0);
+        int helping = Math.min(helpers.length, count - 1);
+        for (int h = 0; h < helping; h++) {
+            helpers[h].reinitialize();
+            pool.execute(helpers[h]);
+        }
+        try {
+            drawBands();
+        } finally {
+            // every band of the frame is taken by now, so this waits for the helpers' last bands and nothing
+            // else in the pool. spinning on their status, as blocking in join() would allocate a wait node
+            for (int h = 0; h < helping; h++) {
+                while (!helpers[h].isDone()) {
+                    Thread.onSpinWait();
+                }
+            }
+            this.renderer = null;
+        }
+        for (int h = 0; h < helping; h++) {
+            // done by now, rethrows what a band threw
+            helpers[h].join();
+        }
+        for (int b = 0; b < count; b++) {
+            bands[b].flushCounts();
+        }
+    }
+
+    // takes bands of the current frame until there are none left
+    private void drawBands() {
+        for (int b = nextBand.getAndIncrement(); b < frameBands; b = nextBand.getAndIncrement()) {
+            renderer.render(bands[b]);
+        }
+    }
+
+    private ClippedRaster band(int b, Raster raster) {
+        if (b >= bands.length) {
+            int size = Math.max(b + 1, bands.length * 2);
+            bands = Arrays.copyOf(bands, size);
+        }
+        if (bands[b] == null) {
+            bands[b] = new ClippedRaster(raster);
+        } else if (bands[b].getTarget() != raster) {
+            bands[b].setTarget(raster);
+        }
+        return bands[b];
+    }
+
+    public void forEach(int count, IntConsumer action) {
+        if (pool == null || count < 2) {
+            for (int i = 0; i < count; i++) {
+                action.accept(i);
+            }
+            return;
+        }
+        pool.invoke(new RangeTask(0, count, action));
+    }
+
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private class BandTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+            drawBands();
+        }
+    }
+
+    private static class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from, to;
+        private final IntConsumer action;
+
+        RangeTask(int from, int to, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                action.accept(from);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, middle, action), new RangeTask(middle, to, action));
+        }
+    }
+}
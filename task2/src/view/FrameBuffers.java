@@ -0,0 +1,118 @@
+package view;
+
+import rasterize.DirtyRegion;
+import rasterize.RasterIntBuffer;
+
+import java.awt.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// three scene and overlay pairs. the render thread draws into the back pair, the newest finished frame
+// waits in the middle slot and the EDT paints the front pair. both sides only ever exchange their pair
+// with the middle slot atomically, so neither waits for the other and a paint never sees a half drawn frame.
+// the rasters are allocated at a capacity and only a viewport of it is in use, so resizing within it is free
+class FrameBuffers {
+
+    private static final int FRESH = 4;
+
+    private final RasterIntBuffer[] scenes = new RasterIntBuffer[3];
+    private final RasterIntBuffer[] overlays = new RasterIntBuffer[3];
+    // what each pair missed since it was last up to date, render thread only
+    private final DirtyRegion[] stale = new DirtyRegion[3];
+    private final int capacityWidth, capacityHeight;
+    // the viewport, render thread only; each pair takes it over when it becomes the back pair
+    private int width, height;
+
+    // the middle pair, with FRESH set until the EDT takes it
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 0;
+    private int front = 2;
+
+    FrameBuffers(int capacityWidth, int capacityHeight, int width, int height) {
+        this.capacityWidth = capacityWidth;
+        this.capacityHeight = capacityHeight;
+        this.width = width;
+        this.height = height;
+        for (int i = 0; i < 3; i++) {
+            scenes[i] = new RasterIntBuffer(capacityWidth, capacityHeight);
+            scenes[i].setClearColor(Color.BLACK.getRGB());
+            overlays[i] = new RasterIntBuffer(capacityWidth, capacityHeight, true);
+            overlays[i].setClearColor(0);
+            overlays[i].clear();
+            scenes[i].setViewport(width, height);
+            overlays[i].setViewport(width, height);
+            stale[i] = new DirtyRegion();
+        }
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    int getCapacityWidth() {
+        return capacityWidth;
+    }
+
+    int getCapacityHeight() {
+        return capacityHeight;
+    }
+
+    // render thread: uses another part of the capacity; pixels uncovered by growing are left as they were
+    void setViewport(int width, int height) {
+        this.width = width;
+        this.height = height;
+        scenes[back].setViewport(width, height);
+        overlays[back].setViewport(width, height);
+    }
+
+    RasterIntBuffer getScene() {
+        return scenes[back];
+    }
+
+    RasterIntBuffer getOverlay() {
+        return overlays[back];
+    }
+
+    // every scene starts as a copy of the newest frame of the buffers being replaced
+    void draw(FrameBuffers buffers) {
+        for (RasterIntBuffer scene : scenes) {
+            scene.draw(buffers.getScene());
+        }
+    }
+
+    // render thread: hands the back pair over as the newest frame, region being what changed since the last one,
+    // and brings the pair it gets back up to date before anything is drawn into it
+    void publish(DirtyRegion region) {
+        for (int i = 0; i < 3; i++) {
+            if (i != back) {
+                stale[i].add(region);
+            }
+        }
+        int published = back;
+        back = middle.getAndSet(published | FRESH) & 3;
+        if (scenes[back].getWidth() != width || scenes[back].getHeight() != height) {
+            scenes[back].setViewport(width, height);
+            overlays[back].setViewport(width, height);
+        }
+
+        DirtyRegion missed = stale[back];
+        missed.clip(0, 0, width - 1, height - 1);
+        if (!missed.isEmpty()) {
+            scenes[back].copyFrom(scenes[published], missed.getMinX(), missed.getMinY(), missed.getMaxX(), missed.getMaxY());
+            overlays[back].copyFrom(overlays[published], missed.getMinX(), missed.getMinY(), missed.getMaxX(), missed.getMaxY());
+        }
+        missed.clear();
+    }
+
+    // EDT: paints the newest finished frame
+    void paint(Graphics g) {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & 3;
+        }
+        scenes[front].repaint(g);
+        overlays[front].repaint(g);
+    }
+}
@@ -0,0 +1,162 @@
+package view;
+
+import rasterize.RenderStats;
+
+import javax.swing.*;
+
+// paints its component only when something marked part of it dirty. requests arriving before the pending
+// frame is painted join it, so a burst of changes costs one paint, and frames are at least 1/maxFps apart.
+// nothing is scheduled while nothing changes, so an idle component costs no CPU
+public class FrameScheduler {
+
+    private final JComponent component;
+    private final long frameNanos;
+    private final Runnable paintFrame = this::paintFrame;
+    // fires a frame that came too early for the cap, stopped otherwise. a Swing timer is only touched on the EDT,
+    // so a request from another thread, e.g. the render thread presenting a frame, starts it through startCapTimer
+    private final Timer capTimer;
+    private final Runnable startCapTimer = this::startCapTimer;
+    private int capDelay;
+    // runs at the start of every frame; whatever it marks dirty is painted in that same frame
+    private Runnable frameCallback;
+
+    private boolean pending;
+    // a callback was asked for since the pending frame ran it
+    private boolean callbackRequested;
+    private boolean painted;
+    private int minX, minY, maxX, maxY;
+    private long firstRequest;
+    private long lastFrame;
+
+    private long frames;
+    private long requests;
+    private long cappedFrames;
+    private long totalLatency, maxLatency;
+    // callback and paint together
+    private long totalPaint, maxPaint;
+
+    public FrameScheduler(JComponent component, int maxFps) {
+        if (maxFps < 1) {
+            throw new IllegalArgumentException("Frame cap must be at least 1 FPS.");
+        }
+        this.component = component;
+        this.frameNanos = 1_000_000_000L / maxFps;
+        capTimer = new Timer(0, e -> paintFrame());
+        capTimer.setRepeats(false);
+    }
+
+    public void setFrameCallback(Runnable frameCallback) {
+        this.frameCallback = frameCallback;
+    }
+
+    public void requestFrame() {
+        requestFrame(0, 0, Integer.MAX_VALUE / 2, Integer.MAX_VALUE / 2);
+    }
+
+    public synchronized void requestFrame(int x, int y, int width, int height) {
+        requests++;
+        schedule();
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        maxX = Math.max(maxX, x + width);
+        maxY = Math.max(maxY, y + height);
+    }
+
+    // a frame with nothing dirty yet, for a frame callback holding changes it applies once per frame
+    public synchronized void requestCallback() {
+        requests++;
+        callbackRequested = true;
+        schedule();
+    }
+
+    private void schedule() {
+        if (pending) {
+            return;
+        }
+        pending = true;
+        minX = minY = Integer.MAX_VALUE;
+        maxX = maxY = Integer.MIN_VALUE;
+
+        firstRequest = System.nanoTime();
+        long wait = painted ? lastFrame + frameNanos - firstRequest : 0;
+        if (wait > 0) {
+            cappedFrames++;
+            capDelay = (int) ((wait + 999_999) / 1_000_000);
+            if (SwingUtilities.isEventDispatchThread()) {
+                startCapTimer();
+            } else {
+                SwingUtilities.invokeLater(startCapTimer);
+            }
+        } else {
+            SwingUtilities.invokeLater(paintFrame);
+        }
+    }
+
+    // on the EDT
+    private void startCapTimer() {
+        int delay;
+        synchronized (this) {
+            delay = capDelay;
+        }
+        capTimer.setInitialDelay(delay);
+        capTimer.restart();
+    }
+
+    // on the EDT
+    private void paintFrame() {
+        int x, y, width, height;
+        boolean dirty;
+        long start = System.nanoTime();
+        synchronized (this) {
+            if (!pending) {
+                return;
+            }
+            callbackRequested = false;
+        }
+        if (frameCallback != null) {
+            frameCallback.run();
+        }
+        synchronized (this) {
+            pending = false;
+            dirty = minX < maxX && minY < maxY;
+            x = minX;
+            y = minY;
+            width = maxX - minX;
+            height = maxY - minY;
+            long latency = start - firstRequest;
+            totalLatency += latency;
+            maxLatency = Math.max(maxLatency, latency);
+            // a frame that only ran the callback painted nothing, so it does not hold back the next one
+            if (dirty) {
+                lastFrame = start;
+                painted = true;
+            }
+            // asked for while the callback ran, too late for it, so it gets a frame of its own
+            if (callbackRequested) {
+                schedule();
+            }
+        }
+
+        if (dirty) {
+            long paintStart = RenderStats.begin(RenderStats.Stage.PAINT);
+            component.paintImmediately(x, y, width, height);
+            RenderStats.end(RenderStats.Stage.PAINT, paintStart);
+        }
+
+        long paint = System.nanoTime() - start;
+        synchronized (this) {
+            frames++;
+            totalPaint += paint;
+            maxPaint = Math.max(maxPaint, paint);
+        }
+    }
+
+    public synchronized String getStatistics() {
+        long count = Math.max(frames, 1);
+        return String.format("%d frames for %d requests (%d coalesced, %d held back by the %d FPS cap), "
+                        + "latency avg %.2f ms max %.2f ms, frame work avg %.2f ms max %.2f ms",
+                frames, requests, requests - frames, cappedFrames, 1_000_000_000L / frameNanos,
+                totalLatency / 1e6 / count, maxLatency / 1e6,
+                totalPaint / 1e6 / count, maxPaint / 1e6);
+    }
+}
@@ -0,0 +1,77 @@
+package view;
+
+import rasterize.RenderStats;
+
+import java.awt.*;
+
+// frame rate and the times of the latest render thread frames, drawn over the top left corner of the panel
+class Hud {
+
+    static final int X = 8, Y = 8, WIDTH = 264, HEIGHT = 90;
+    private static final int GRAPH_HEIGHT = 60;
+    // the graph tops out at two 60 FPS frames
+    private static final long GRAPH_NANOS = 33_333_333L;
+    private static final long BUDGET_NANOS = 16_666_667L;
+    private static final int BARS = 128;
+
+    private static final Color BACKGROUND = new Color(0, 0, 0, 180);
+    private static final Color FAST = new Color(0x4CAF50);
+    private static final Color SLOW = new Color(0xFFC107);
+    private static final Color DROPPED = new Color(0xF44336);
+
+    private volatile boolean visible;
+    private boolean statsWereEnabled;
+
+    // EDT only
+    private final long[] paints = new long[BARS];
+    private int paintCount;
+    private final long[] frames = new long[BARS];
+
+    boolean isVisible() {
+        return visible;
+    }
+
+    void setVisible(boolean visible) {
+        if (visible) {
+            statsWereEnabled = RenderStats.isEnabled();
+            RenderStats.setEnabled(true);
+        } else {
+            RenderStats.setEnabled(statsWereEnabled);
+        }
+        this.visible = visible;
+    }
+
+    void paint(Graphics g) {
+        if (!visible) {
+            return;
+        }
+        long now = System.nanoTime();
+        paints[paintCount++ % BARS] = now;
+        int fps = 0;
+        for (int i = 0; i < Math.min(paintCount, BARS); i++) {
+            if (now - paints[i] <= 1_000_000_000L) {
+                fps++;
+            }
+        }
+
+        g.setColor(BACKGROUND);
+        g.fillRect(X, Y, WIDTH, HEIGHT);
+
+        int count = RenderStats.getRecentFrames(frames);
+        int bottom = Y + HEIGHT - 4;
+        for (int i = 0; i < count; i++) {
+            long time = frames[i];
+            int height = (int) Math.max(1, Math.min(GRAPH_HEIGHT, time * GRAPH_HEIGHT / GRAPH_NANOS));
+            g.setColor(time <= BUDGET_NANOS ? FAST : time <= GRAPH_NANOS ? SLOW : DROPPED);
+            g.fillRect(X + 4 + i * 2, bottom - height, 1, height);
+        }
+        int budget = (int) (BUDGET_NANOS * GRAPH_HEIGHT / GRAPH_NANOS);
+        g.setColor(Color.GRAY);
+        g.drawLine(X + 4, bottom - budget, X + WIDTH - 4, bottom - budget);
+
+        g.setColor(Color.WHITE);
+        g.drawString(String.format("%d fps  frame p50 %.1f ms  p99 %.1f ms", fps,
+                RenderStats.getPercentile(RenderStats.Stage.FRAME, 0.5) / 1e6,
+                RenderStats.getPercentile(RenderStats.Stage.FRAME, 0.99) / 1e6), X + 4, Y + 14);
+    }
+}
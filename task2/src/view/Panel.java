@@ -1,58 +1,117 @@
 package view;
 
+import rasterize.DirtyRegion;
 import rasterize.Raster;
-import rasterize.RasterBufferedImage;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.Timer;
-import java.util.TimerTask;
 
 public class Panel extends JPanel {
 
-    private RasterBufferedImage raster;
+    // the render thread draws into the back buffers, the EDT paints the front ones
+    private volatile FrameBuffers buffers;
+    private int reallocations;
+    private final Hud hud = new Hud();
+    // -Dgrafika.maxFps raises or lowers the frame cap
+    private final FrameScheduler frameScheduler = new FrameScheduler(this, Integer.getInteger("grafika.maxFps", 60));
 
     public Raster getRaster() {
-        return raster;
+        return buffers.getScene();
+    }
+
+    public Raster getOverlay() {
+        return buffers.getOverlay();
     }
 
-    private static final int FPS = 1000 / 20;
     public static final int WIDTH = 800, HEIGHT = 600;
 
-    Panel() {
+    public Panel() {
         setPreferredSize(new Dimension(WIDTH, HEIGHT));
-        raster = new RasterBufferedImage(WIDTH, HEIGHT);
-        raster.setClearColor(Color.BLACK.getRGB());
-        setLoop();
+        buffers = new FrameBuffers(WIDTH, HEIGHT, WIDTH, HEIGHT);
+    }
+
+    public FrameScheduler getFrameScheduler() {
+        return frameScheduler;
+    }
+
+    // the next frame repaints at least this area, painted once however many changes arrive before it
+    public void requestFrame(int x, int y, int width, int height) {
+        frameScheduler.requestFrame(x, y, width, height);
+    }
+
+    public void requestFrame() {
+        frameScheduler.requestFrame();
+    }
+
+    // render thread: shows the region drawn into getRaster() and getOverlay() since the last call,
+    // after which both return the next back buffers
+    public void present(DirtyRegion region) {
+        FrameBuffers buffers = this.buffers;
+        region.clip(0, 0, buffers.getWidth() - 1, buffers.getHeight() - 1);
+        if (region.isEmpty()) {
+            return;
+        }
+        buffers.publish(region);
+        frameScheduler.requestFrame(region.getMinX(), region.getMinY(),
+                region.getMaxX() - region.getMinX() + 1, region.getMaxY() - region.getMinY() + 1);
+        if (hud.isVisible()) {
+            requestHudFrame();
+        }
+    }
+
+    public boolean isHudVisible() {
+        return hud.isVisible();
+    }
+
+    // the HUD needs the statistics, so showing it turns them on until it is hidden again
+    public void setHudVisible(boolean visible) {
+        if (visible == hud.isVisible()) {
+            return;
+        }
+        hud.setVisible(visible);
+        requestHudFrame();
+    }
+
+    private void requestHudFrame() {
+        frameScheduler.requestFrame(Hud.X, Hud.Y, Hud.WIDTH, Hud.HEIGHT);
     }
 
     @Override
     public void paintComponent(Graphics g) {
         super.paintComponent(g);
-        raster.repaint(g);
+        buffers.paint(g);
+        hud.paint(g);
     }
 
-    public void resize(){
-        if (this.getWidth() < 1 || this.getHeight() < 1)
+    // render thread, with the size the EDT saw. a size within the capacity only moves the viewport,
+    // a larger one reallocates with half again as much room, so a drag to a bigger window reallocates
+    // a few times rather than on every step
+    public void resizeBuffers(int width, int height) {
+        FrameBuffers buffers = this.buffers;
+        if (width < 1 || height < 1)
             return;
-        if (this.getWidth() <= raster.getWidth() && this.getHeight() <= raster.getHeight())
+        if (width <= buffers.getCapacityWidth() && height <= buffers.getCapacityHeight()) {
+            buffers.setViewport(width, height);
             return;
-        RasterBufferedImage newRaster = new RasterBufferedImage(this.getWidth(), this.getHeight());
+        }
+        FrameBuffers resized = new FrameBuffers(grow(buffers.getCapacityWidth(), width),
+                grow(buffers.getCapacityHeight(), height), width, height);
+        resized.draw(buffers);
+        this.buffers = resized;
+        reallocations++;
+    }
 
-        newRaster.draw(raster);
-        raster = newRaster;
+    private static int grow(int capacity, int needed) {
+        return needed <= capacity ? capacity : Math.max(needed, capacity + capacity / 2);
     }
 
-    private void setLoop() {
-        new Timer().schedule(new TimerTask() {
-            @Override
-            public void run() {
-                repaint();
-            }
-        }, 0, FPS);
+    // how many times resizing had to allocate new buffers
+    public int getReallocations() {
+        return reallocations;
     }
 
     public void clear() {
-        raster.clear();
+        buffers.getScene().clear();
+        buffers.getOverlay().clear();
     }
 }